@@ -1,15 +1,24 @@
 package com.example.ProyectoWeb.auth;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import com.example.ProyectoWeb.config.RateLimitProperties;
+import com.example.ProyectoWeb.config.TokenBucketRateLimiter;
+
+import java.util.Locale;
+import java.util.concurrent.RejectedExecutionException;
+
 @RestController
 @RequestMapping("/auth")
 @RequiredArgsConstructor
 public class AuthController {
 
     private final AuthService authService;
+    private final RateLimitProperties rateLimitProperties;
+    private final TokenBucketRateLimiter rateLimiter;
 
     @GetMapping(value = "login")
     public String login() {
@@ -18,15 +27,56 @@ public class AuthController {
 
     @PostMapping(value = "login")
     public ResponseEntity<AuthResponse> login(@RequestBody LoginRequest request) {
+        if (!permitirIntento(request.getUsername())) {
+            long retryAfter = (long) Math.ceil(1 / Math.max(rateLimitProperties.getLoginUsernameRefillPerSecond(), 0.001));
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header("Retry-After", String.valueOf(retryAfter)).build();
+        }
         try {
             return ResponseEntity.ok(authService.login(request));
+        } catch (RejectedExecutionException e) {
+            return serviceUnavailable();
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(401).build();
+        }
+    }
+
+    @PostMapping(value = "refresh")
+    public ResponseEntity<AuthResponse> refresh(@RequestBody RefreshRequest request) {
+        try {
+            return ResponseEntity.ok(authService.refresh(request));
         } catch (RuntimeException e) {
             return ResponseEntity.status(401).build();
         }
     }
 
+    @PostMapping(value = "logout")
+    public ResponseEntity<Void> logout(@RequestHeader(value = "Authorization", required = false) String authHeader,
+                                       @RequestBody(required = false) RefreshRequest request) {
+        String accessToken = authHeader != null && authHeader.startsWith("Bearer ") ? authHeader.substring(7) : null;
+        authService.logout(accessToken, request != null ? request.getRefreshToken() : null);
+        return ResponseEntity.noContent().build();
+    }
+
     @PostMapping(value = "register")
     public ResponseEntity<AuthResponse> register(@RequestBody RegisterRequest request) {
-        return ResponseEntity.ok(authService.register(request));
+        try {
+            return ResponseEntity.ok(authService.register(request));
+        } catch (RejectedExecutionException e) {
+            return serviceUnavailable();
+        }
+    }
+
+    // Límite por username del RateLimitFilter, que no lee el cuerpo de la petición
+    private boolean permitirIntento(String username) {
+        if (!rateLimitProperties.isEnabled() || username == null) {
+            return true;
+        }
+        return rateLimiter.tryAcquire("login:" + username.toLowerCase(Locale.ROOT),
+                rateLimitProperties.getLoginUsernameCapacity(), rateLimitProperties.getLoginUsernameRefillPerSecond());
+    }
+
+    // El pool de hashing está saturado: se responde al instante en lugar de encolar sin límite
+    private static ResponseEntity<AuthResponse> serviceUnavailable() {
+        return ResponseEntity.status(503).header("Retry-After", "1").build();
     }
 }
@@ -12,6 +12,6 @@ import lombok.NoArgsConstructor;
 public class AuthResponse {
 
     String token;
-
+    String refreshToken;
 
 }
@@ -1,12 +1,15 @@
 package com.example.ProyectoWeb.auth;
 
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import com.example.ProyectoWeb.config.JwtClaims;
 import com.example.ProyectoWeb.config.JwtService;
+import com.example.ProyectoWeb.config.PasswordHashingExecutor;
+import com.example.ProyectoWeb.config.TokenRevocationService;
 import com.example.ProyectoWeb.entity.Role;
 import com.example.ProyectoWeb.entity.Usuario;
 import com.example.ProyectoWeb.repositories.IUsuarioRepository;
@@ -20,16 +23,53 @@ public class AuthService {
     private final UsuarioService usuarioService;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
+    private final RefreshTokenService refreshTokenService;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final TokenRevocationService tokenRevocationService;
 
     public AuthResponse login(LoginRequest request) throws RuntimeException {
-        authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword()));
-        UserDetails user = userRepository.findByUsername(request.getUsername()).orElseThrow();
+        // La verificación con BCrypt se hace en el pool de hashing, no en el hilo de Tomcat
+        passwordHashingExecutor.execute(() -> authenticationManager.authenticate(
+                new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword())));
+        Usuario user = userRepository.findByUsername(request.getUsername()).orElseThrow();
         String token = jwtService.getToken(user);
         return AuthResponse.builder()
                 .token(token)
+                .refreshToken(refreshTokenService.crear(user))
                 .build();
     }
 
+    /**
+     * Renueva el access token a partir de un refresh token, sin pasar por BCrypt
+     * @param request Refresh token emitido en el login o en la renovación anterior
+     * @return Access token nuevo y el siguiente refresh token
+     */
+    public AuthResponse refresh(RefreshRequest request) throws RuntimeException {
+        RefreshTokenService.Rotacion rotacion = refreshTokenService.rotar(request.getRefreshToken())
+                .orElseThrow(() -> new RuntimeException("Refresh token inválido"));
+        return AuthResponse.builder()
+                .token(jwtService.getToken(rotacion.usuario()))
+                .refreshToken(rotacion.refreshToken())
+                .build();
+    }
+
+    /**
+     * Cierra la sesión: revoca el access token actual y la familia del refresh token
+     * @param accessToken Token de la cabecera Authorization (puede ser null)
+     * @param refreshToken Refresh token de la sesión (puede ser null)
+     */
+    public void logout(String accessToken, String refreshToken) {
+        if (accessToken != null) {
+            try {
+                JwtClaims claims = jwtService.verify(accessToken);
+                tokenRevocationService.revoke(claims.jti(), claims.expiresAtMillis());
+            } catch (JwtException | IllegalArgumentException e) {
+                // Token ya inválido o expirado: no hay nada que revocar
+            }
+        }
+        refreshTokenService.revocar(refreshToken);
+    }
+
     public AuthResponse register(RegisterRequest request) {
         Usuario user;
             user = Usuario.builder()
@@ -44,6 +84,7 @@ public class AuthService {
 
         return AuthResponse.builder()
                 .token(jwtService.getToken(user))
+                .refreshToken(refreshTokenService.crear(user))
                 .build();
     }
 
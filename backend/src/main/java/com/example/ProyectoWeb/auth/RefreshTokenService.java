@@ -0,0 +1,124 @@
+package com.example.ProyectoWeb.auth;
+
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.ProyectoWeb.entity.RefreshToken;
+import com.example.ProyectoWeb.entity.Usuario;
+import com.example.ProyectoWeb.repositories.IRefreshTokenRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Refresh tokens de larga duración y un solo uso. Renovar la sesión cuesta una búsqueda
+ * por índice y una firma HMAC, en lugar de volver a verificar la contraseña con BCrypt.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final IRefreshTokenRepository refreshTokenRepository;
+
+    @Value("${jwt.refresh-token-ttl-ms:604800000}")
+    private long refreshTokenTtlMs;
+
+    public record Rotacion(Usuario usuario, String refreshToken) {
+    }
+
+    /**
+     * Emite un refresh token para un login nuevo (inicia una familia de rotación).
+     * @return El token en claro que se entrega al cliente
+     */
+    public String crear(Usuario usuario) {
+        return crear(usuario, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Consume un refresh token y emite el siguiente de su familia.
+     * Si el token ya se había usado se considera robado y se elimina toda la familia.
+     * @return La rotación, o vacío si el token no es válido
+     */
+    @Transactional
+    public Optional<Rotacion> rotar(String refreshToken) {
+        if (refreshToken == null || refreshToken.isEmpty()) {
+            return Optional.empty();
+        }
+        Optional<RefreshToken> encontrado = refreshTokenRepository.findByTokenHashConUsuario(hash(refreshToken));
+        if (encontrado.isEmpty()) {
+            return Optional.empty();
+        }
+        RefreshToken actual = encontrado.get();
+        if (actual.getExpiraEn().before(new Date())) {
+            return Optional.empty();
+        }
+        if (actual.isUsado() || refreshTokenRepository.marcarUsado(actual.getId()) == 0) {
+            // Reutilización: se invalida la familia completa
+            refreshTokenRepository.deleteByFamilia(actual.getFamilia());
+            return Optional.empty();
+        }
+        String siguiente = crear(actual.getUsuario(), actual.getFamilia());
+        return Optional.of(new Rotacion(actual.getUsuario(), siguiente));
+    }
+
+    /**
+     * Invalida el refresh token y todos los de su familia (cierre de sesión)
+     */
+    @Transactional
+    public void revocar(String refreshToken) {
+        if (refreshToken == null || refreshToken.isEmpty()) {
+            return;
+        }
+        refreshTokenRepository.findByTokenHashConUsuario(hash(refreshToken))
+                .ifPresent(actual -> refreshTokenRepository.deleteByFamilia(actual.getFamilia()));
+    }
+
+    /**
+     * Borra en bloque los refresh tokens expirados
+     */
+    @Transactional
+    @Scheduled(fixedDelayString = "${jwt.refresh-token-cleanup-ms:3600000}")
+    public void limpiarExpirados() {
+        int eliminados = refreshTokenRepository.deleteExpirados(new Date());
+        if (eliminados > 0) {
+            log.info("Refresh tokens expirados eliminados: {}", eliminados);
+        }
+    }
+
+    private String crear(Usuario usuario, String familia) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setTokenHash(hash(token));
+        refreshToken.setUsuario(usuario);
+        refreshToken.setFamilia(familia);
+        refreshToken.setExpiraEn(new Date(System.currentTimeMillis() + refreshTokenTtlMs));
+        refreshTokenRepository.save(refreshToken);
+        return token;
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.ProyectoWeb.config;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Ejecuta una acción cuando se confirma la transacción en curso, o al momento si no hay ninguna.
+ * Se usa para invalidar estado en memoria sin que una lectura concurrente vuelva a cargar
+ * los datos anteriores a la escritura.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    public static void run(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
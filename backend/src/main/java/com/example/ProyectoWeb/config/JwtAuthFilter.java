@@ -1,12 +1,13 @@
 package com.example.ProyectoWeb.config;
 
-import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
@@ -19,15 +20,28 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @Component
 @RequiredArgsConstructor
 public class JwtAuthFilter extends OncePerRequestFilter {
 
+    // Authorities por rol, construidas una vez en lugar de en cada petición
+    private static final Map<String, List<GrantedAuthority>> AUTHORITIES_BY_ROLE = Map.of(
+            "admin", List.of(
+                    new SimpleGrantedAuthority("ROLE_ADMIN"),
+                    new SimpleGrantedAuthority("admin:read"),
+                    new SimpleGrantedAuthority("admin:write"),
+                    new SimpleGrantedAuthority("admin:update"),
+                    new SimpleGrantedAuthority("admin:delete")),
+            "organizador", List.of(
+                    new SimpleGrantedAuthority("ROLE_ORGANIZADOR"),
+                    new SimpleGrantedAuthority("organizador:read"),
+                    new SimpleGrantedAuthority("organizador:write"),
+                    new SimpleGrantedAuthority("organizador:update"),
+                    new SimpleGrantedAuthority("organizador:delete")));
+
     @Autowired
     private JwtService jwtService;
 
@@ -35,63 +49,74 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     @Lazy
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    // Si está activo, el principal y las authorities salen solo de los claims firmados (sin consultar la BD)
+    @Value("${jwt.auth.claims-only:true}")
+    private boolean claimsOnly;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         String authHeader = request.getHeader("Authorization");
-        String token = null;
-        String username = null;
-        
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7); // Extract token
-            username = jwtService.getUsernameFromToken(token); // Extract username from token
-        }
-        
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            
-            if (jwtService.isTokenValid(token, userDetails)) {
-                // Extraer todas las claims del token
-                Claims claims = jwtService.extractAllClaims(token);
-                System.out.println("JWT claims: " + claims);
-                
-                // Crear una colección de authorities
-                Collection<GrantedAuthority> authorities = new ArrayList<>();
-                
-                // 1. Obtener el rol del claim y agregarlo como authority con prefijo ROLE_
-                String role = claims.get("role", String.class);
-                if (role != null) {
-                    System.out.println("Role from token: " + role);
-                    authorities.add(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()));
-                    
-                    // 2. AÑADIR MANUALMENTE LAS AUTHORITIES BASADAS EN EL ROL
-                    if (role.equalsIgnoreCase("admin")) {
-                        authorities.add(new SimpleGrantedAuthority("admin:read"));
-                        authorities.add(new SimpleGrantedAuthority("admin:write"));
-                        authorities.add(new SimpleGrantedAuthority("admin:update"));
-                        authorities.add(new SimpleGrantedAuthority("admin:delete"));
-                    } else if (role.equalsIgnoreCase("organizador")) {
-                        authorities.add(new SimpleGrantedAuthority("organizador:read"));
-                        authorities.add(new SimpleGrantedAuthority("organizador:write"));
-                        authorities.add(new SimpleGrantedAuthority("organizador:update"));
-                        authorities.add(new SimpleGrantedAuthority("organizador:delete"));
-                    }
+
+        if (authHeader != null && authHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String token = authHeader.substring(7); // Extract token
+            JwtClaims claims = null;
+            try {
+                // Una sola verificación por token (o ninguna si ya está en caché)
+                claims = jwtService.verify(token);
+            } catch (JwtException | IllegalArgumentException e) {
+                // Token inválido o expirado: la petición sigue sin autenticar
+            }
+
+            if (claims != null && claims.username() != null) {
+                Object principal = resolvePrincipal(claims);
+                if (principal != null) {
+                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                            principal, null, authoritiesFor(claims.role()));
+                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authToken);
                 }
-                
-                // 3. ESTA ES LA PARTE CRUCIAL QUE FALTA ⬇️⬇️⬇️
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, authorities);
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
-                // ⬆️⬆️⬆️ ESTA PARTE ES LA QUE ESTABLECE LA AUTENTICACIÓN
-                
-                System.out.println("Authenticated user: " + username + " with authorities: " + 
-                    authorities.stream()
-                        .map(GrantedAuthority::getAuthority)
-                        .collect(Collectors.joining(", ")));
             }
         }
-        
+
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Devuelve el principal de la petición, o null si el token ya no es válido
+     * porque el rol del usuario cambió después de emitirlo o porque fue revocado.
+     */
+    private Object resolvePrincipal(JwtClaims claims) {
+        if (claims.id() != null && !tokenVersionRegistry.isCurrent(claims.id(), claims.tokenVersion())) {
+            return null;
+        }
+        // En el caso normal se responde desde el filtro de Bloom, sin consultar la BD
+        if (tokenRevocationService.isRevoked(claims.jti())) {
+            return null;
+        }
+        if (claimsOnly && claims.id() != null) {
+            return new JwtPrincipal(claims.id(), claims.username(), claims.role());
+        }
+        // Tokens sin claim "id" o modo clásico: se carga el usuario desde la BD
+        UserDetails userDetails = userDetailsService.loadUserByUsername(claims.username());
+        return userDetails;
+    }
+
+    private static List<GrantedAuthority> authoritiesFor(String role) {
+        if (role == null) {
+            return List.of();
+        }
+        String normalized = role.toLowerCase();
+        List<GrantedAuthority> authorities = AUTHORITIES_BY_ROLE.get(normalized);
+        return authorities != null
+                ? authorities
+                : List.of(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()));
+    }
+
 }
@@ -0,0 +1,12 @@
+package com.example.ProyectoWeb.config;
+
+/**
+ * Claims de un token ya verificado (firma y expiración).
+ * Es inmutable para poder compartirse entre peticiones desde la caché de tokens.
+ */
+public record JwtClaims(String jti, String username, Long id, String role, int tokenVersion, long expiresAtMillis) {
+
+    public boolean isExpired(long nowMillis) {
+        return expiresAtMillis <= nowMillis;
+    }
+}
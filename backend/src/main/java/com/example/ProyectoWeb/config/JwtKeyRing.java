@@ -0,0 +1,98 @@
+package com.example.ProyectoWeb.config;
+
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.security.GeneralSecurityException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Conjunto de claves de firma de JWT identificadas por "kid".
+ * Los tokens se firman con la clave activa y se verifican con la clave indicada en su cabecera,
+ * así que para rotar basta con añadir una clave nueva, marcarla como activa y retirar la
+ * anterior cuando hayan expirado los tokens firmados con ella, sin cerrar la sesión a nadie.
+ */
+@Component
+public class JwtKeyRing {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final Map<String, SigningKey> keys;
+    private final SigningKey active;
+
+    /**
+     * @param keysProperty claves en formato "kid:secretoBase64", separadas por comas
+     * @param activeKid kid de la clave con la que se firman los tokens nuevos
+     */
+    public JwtKeyRing(@Value("${jwt.keys}") String keysProperty,
+                      @Value("${jwt.active-kid}") String activeKid) {
+        Map<String, SigningKey> loaded = new HashMap<>();
+        for (String entry : keysProperty.split(",")) {
+            String trimmed = entry.trim();
+            int separator = trimmed.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalStateException("Clave JWT mal formada, se esperaba kid:secreto");
+            }
+            String kid = trimmed.substring(0, separator);
+            SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(trimmed.substring(separator + 1)));
+            loaded.put(kid, new SigningKey(kid, key));
+        }
+        this.keys = Map.copyOf(loaded);
+        this.active = keys.get(activeKid);
+        if (this.active == null) {
+            throw new IllegalStateException("La clave JWT activa '" + activeKid + "' no está en jwt.keys");
+        }
+    }
+
+    public SigningKey active() {
+        return active;
+    }
+
+    /**
+     * Busca la clave de verificación por su kid. Los tokens emitidos antes de
+     * introducir el kid se verifican con la clave activa.
+     * @return la clave, o null si el kid no pertenece al conjunto
+     */
+    public SigningKey find(String kid) {
+        return kid == null ? active : keys.get(kid);
+    }
+
+    public static final class SigningKey {
+
+        private final String kid;
+        private final SecretKey key;
+        // Un Mac ya inicializado por hilo: Mac no es thread-safe y doFinal lo deja listo para reutilizar
+        private final ThreadLocal<Mac> mac;
+
+        private SigningKey(String kid, SecretKey key) {
+            this.kid = kid;
+            this.key = key;
+            this.mac = ThreadLocal.withInitial(() -> {
+                try {
+                    Mac instance = Mac.getInstance(HMAC_ALGORITHM);
+                    instance.init(key);
+                    return instance;
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+
+        public String kid() {
+            return kid;
+        }
+
+        public SecretKey key() {
+            return key;
+        }
+
+        public byte[] sign(byte[] data) {
+            return mac.get().doFinal(data);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.ProyectoWeb.config;
+
+import java.security.Principal;
+
+/**
+ * Principal construido únicamente a partir de los claims firmados del token,
+ * sin consultar la base de datos.
+ */
+public record JwtPrincipal(Long id, String username, String role) implements Principal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
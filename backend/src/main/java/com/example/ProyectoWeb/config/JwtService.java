@@ -1,26 +1,40 @@
 package com.example.ProyectoWeb.config;
 
-import io.jsonwebtoken.Claims;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.PrematureJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import java.security.Key;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.UUID;
 import java.util.ArrayList;
 
 @Service
+@RequiredArgsConstructor
 public class JwtService {
 
-    // Replace this with a secure key in a real application, ideally fetched from environment variables
-    private static final String SECRET_KEY = "5367566B59703373367639792F423F4528482B4D6251655468576D5A71347437";
+    private static final Base64.Decoder BASE64_URL = Base64.getUrlDecoder();
+
+    private final JwtKeyRing keyRing;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final ObjectMapper objectMapper;
+
+    @Value("${jwt.access-token-ttl-ms:300000}")
+    private long accessTokenTtlMs;
 
     public String getToken(UserDetails user) {
         Map<String, Object> claims = new HashMap<>();
@@ -28,6 +42,7 @@ public class JwtService {
             String role = usuario.getRol().name();
             claims.put("role", role.toLowerCase()); 
             claims.put("id", usuario.getId());
+            claims.put("tv", usuario.getTokenVersion());
             
             // Añadir authorities basadas en el rol (usar original en mayúsculas)
             List<String> authorities = new ArrayList<>();
@@ -49,55 +64,125 @@ public class JwtService {
     }
 
     private String getToken(Map<String,Object> extractClaims, UserDetails user) {
+        JwtKeyRing.SigningKey signingKey = keyRing.active();
         return Jwts
                 .builder()
+                .setHeaderParam("kid", signingKey.kid())
                 .setClaims(extractClaims)
+                .setId(UUID.randomUUID().toString()) // jti, permite revocar este token concreto
                 .setSubject(user.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 24))
-                .signWith(getKey(), SignatureAlgorithm.HS256)
+                .setExpiration(new Date(System.currentTimeMillis() + accessTokenTtlMs))
+                .signWith(signingKey.key(), SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    private Key getKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY);
-        return Keys.hmacShaKeyFor(keyBytes);
+    /**
+     * Verifica firma y expiración del token una única vez y devuelve sus claims.
+     * Los tokens ya verificados se sirven desde la caché sin volver a calcular el HMAC.
+     * @param token JWT recibido en la cabecera Authorization
+     * @return Claims inmutables del token
+     * @throws io.jsonwebtoken.JwtException si el token es inválido o ha expirado
+     */
+    public JwtClaims verify(String token) {
+        JwtClaims cached = verifiedTokenCache.get(token);
+        if (cached != null) {
+            return cached;
+        }
+        JwtClaims verified = parseAndVerify(token);
+        verifiedTokenCache.put(token, verified);
+        return verified;
     }
 
     public String getUsernameFromToken(String token) {
-        return getClaim(token, Claims::getSubject);
+        return verify(token).username();
     }
 
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = getUsernameFromToken(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
-    }
+    /**
+     * Comprueba el HMAC con la clave del "kid" de la cabecera (búsqueda O(1) en el
+     * key ring, con un Mac ya inicializado por hilo) y solo entonces lee el payload.
+     */
+    private JwtClaims parseAndVerify(String token) {
+        int firstDot = token.indexOf('.');
+        int lastDot = token.lastIndexOf('.');
+        if (firstDot <= 0 || lastDot == firstDot || lastDot == token.length() - 1) {
+            throw new MalformedJwtException("JWT mal formado");
+        }
 
-    private Claims getAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        Map<String, Object> header = readJson(token.substring(0, firstDot));
+        if (!SignatureAlgorithm.HS256.getValue().equals(header.get("alg"))) {
+            throw new MalformedJwtException("Algoritmo JWT no soportado: " + header.get("alg"));
+        }
+        String kid = texto(header, "kid");
+        JwtKeyRing.SigningKey signingKey = keyRing.find(kid);
+        if (signingKey == null) {
+            throw new SignatureException("Clave de firma desconocida: " + kid);
+        }
+
+        byte[] expected = signingKey.sign(token.substring(0, lastDot).getBytes(StandardCharsets.US_ASCII));
+        byte[] actual = decode(token.substring(lastDot + 1));
+        if (!MessageDigest.isEqual(expected, actual)) {
+            throw new SignatureException("Firma JWT inválida");
+        }
+
+        Map<String, Object> payload = readJson(token.substring(firstDot + 1, lastDot));
+        Number exp = numero(payload, "exp");
+        if (exp == null) {
+            throw new MalformedJwtException("JWT sin expiración");
+        }
+        long ahora = System.currentTimeMillis();
+        long expiresAtMillis = exp.longValue() * 1000;
+        if (expiresAtMillis <= ahora) {
+            throw new ExpiredJwtException(null, null, "JWT expirado");
+        }
+        Number nbf = numero(payload, "nbf");
+        if (nbf != null && nbf.longValue() * 1000 > ahora) {
+            throw new PrematureJwtException(null, null, "JWT todavía no válido");
+        }
+
+        Number id = numero(payload, "id");
+        Number tokenVersion = numero(payload, "tv");
+        return new JwtClaims(
+                texto(payload, "jti"),
+                texto(payload, "sub"),
+                id != null ? id.longValue() : null,
+                texto(payload, "role"),
+                tokenVersion != null ? tokenVersion.intValue() : 0,
+                expiresAtMillis);
     }
 
-    public <T> T getClaim(String token, Function<Claims,T> claimsResolver) {
-        final Claims claims = getAllClaims(token);
-        return claimsResolver.apply(claims);
+    // Los campos opcionales pueden faltar, pero si están deben tener el tipo esperado
+    private static String texto(Map<String, Object> json, String campo) {
+        Object valor = json.get(campo);
+        if (valor == null || valor instanceof String) {
+            return (String) valor;
+        }
+        throw new MalformedJwtException("Campo JWT no válido: " + campo);
     }
 
-    private Date getExpirationDateFromToken(String token) {
-        return getClaim(token, Claims::getExpiration);
+    private static Number numero(Map<String, Object> json, String campo) {
+        Object valor = json.get(campo);
+        if (valor == null || valor instanceof Number) {
+            return (Number) valor;
+        }
+        throw new MalformedJwtException("Campo JWT no válido: " + campo);
     }
 
-    private boolean isTokenExpired(String token) {
-        return getExpirationDateFromToken(token).before(new Date());
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> readJson(String base64Url) {
+        try {
+            return objectMapper.readValue(decode(base64Url), Map.class);
+        } catch (IOException | ClassCastException e) {
+            throw new MalformedJwtException("JWT mal formado", e);
+        }
     }
 
-    // Agregar este método en JwtService.java
-    public Claims extractAllClaims(String token) {
-        return getAllClaims(token);
+    private static byte[] decode(String base64Url) {
+        try {
+            return BASE64_URL.decode(base64Url);
+        } catch (IllegalArgumentException e) {
+            throw new MalformedJwtException("JWT mal formado", e);
+        }
     }
 
 }
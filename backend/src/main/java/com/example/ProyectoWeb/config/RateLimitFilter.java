@@ -0,0 +1,76 @@
+package com.example.ProyectoWeb.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Limita login, registro y los endpoints de escritura por IP del cliente y, si la
+ * petición ya está autenticada por JwtAuthFilter, también por usuario.
+ *
+ * La IP es la de getRemoteAddr(): detrás de un proxy, server.forward-headers-strategy hace
+ * que Tomcat la tome de X-Forwarded-For solo si la petición llega desde un proxy de confianza
+ * (server.tomcat.remoteip.internal-proxies), así que un cliente no puede falsearla.
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final RateLimitProperties properties;
+    private final TokenBucketRateLimiter rateLimiter;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        int ruleIndex = matchRule(request);
+        if (ruleIndex >= 0) {
+            RateLimitProperties.Rule rule = properties.getRules().get(ruleIndex);
+            boolean allowed = rateLimiter.tryAcquire(
+                    "ip:" + ruleIndex + ":" + request.getRemoteAddr(), rule.getCapacity(), rule.getRefillPerSecond());
+
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (allowed && authentication != null && !(authentication instanceof AnonymousAuthenticationToken)) {
+                allowed = rateLimiter.tryAcquire(
+                        "user:" + ruleIndex + ":" + authentication.getName(), rule.getCapacity(), rule.getRefillPerSecond());
+            }
+
+            if (!allowed) {
+                long retryAfter = (long) Math.ceil(1 / Math.max(rule.getRefillPerSecond(), 0.001));
+                response.setStatus(429);
+                response.setHeader("Retry-After", String.valueOf(retryAfter));
+                response.setContentType("application/json");
+                response.getWriter().write("{\"message\":\"Demasiadas peticiones, inténtalo más tarde\"}");
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private int matchRule(HttpServletRequest request) {
+        if (!properties.isEnabled()) {
+            return -1;
+        }
+        String path = request.getServletPath();
+        List<RateLimitProperties.Rule> rules = properties.getRules();
+        for (int i = 0; i < rules.size(); i++) {
+            RateLimitProperties.Rule rule = rules.get(i);
+            if ((rule.getMethod() == null || rule.getMethod().isEmpty() || rule.getMethod().equalsIgnoreCase(request.getMethod()))
+                    && PATH_MATCHER.match(rule.getPattern(), path)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
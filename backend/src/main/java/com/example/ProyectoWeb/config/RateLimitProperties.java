@@ -0,0 +1,42 @@
+package com.example.ProyectoWeb.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Límites por ruta del RateLimitFilter (prefijo "rate-limit" en application.properties).
+ * Se aplica la primera regla cuyo método y patrón coinciden con la petición.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // Tiempo sin uso tras el que se elimina un bucket (ya estaría lleno de nuevo)
+    private long idleEvictionMs = 600_000;
+
+    private List<Rule> rules = new ArrayList<>();
+
+    // Intentos de login por username, además del límite por IP de las reglas: frena el ataque
+    // a una cuenta aunque llegue repartido entre muchas IP
+    private int loginUsernameCapacity = 10;
+    private double loginUsernameRefillPerSecond = 0.02;
+
+    @Data
+    public static class Rule {
+        // Método HTTP; vacío para cualquiera
+        private String method;
+        // Patrón Ant de la ruta, p. ej. /api/v1/eventos/*/inscribirse
+        private String pattern;
+        // Peticiones permitidas en ráfaga
+        private int capacity;
+        // Tokens que se recuperan por segundo
+        private double refillPerSecond;
+    }
+}
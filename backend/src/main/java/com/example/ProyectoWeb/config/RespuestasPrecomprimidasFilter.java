@@ -0,0 +1,267 @@
+package com.example.ProyectoWeb.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.example.ProyectoWeb.pagination.Paginacion;
+import com.example.ProyectoWeb.services.EventoService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Respuestas ya serializadas y comprimidas para las lecturas anónimas de /api/v1/eventos/**.
+ *
+ * Para un anónimo el cuerpo es el mismo para todos, así que la primera respuesta 200 se
+ * guarda en bytes (sin comprimir y en gzip) y las siguientes se escriben tal cual, sin pasar
+ * por el controlador, Jackson ni el compresor. Una entrada deja de valer cuando cambian los
+ * sellos de eventos o usuarios de VersionStamps, o cuando pasa la fecha del evento activo
+ * más próximo. Es independiente de la foto de eventos activos, que guarda objetos y no bytes.
+ *
+ * La clave se construye solo con los parámetros que entienden los controladores, en orden
+ * fijo; una petición con cualquier otro parámetro se atiende sin guardarla, para que no se
+ * pueda llenar la caché variando parámetros que no cambian la respuesta. El tamaño total
+ * (cuerpo sin comprimir más gzip) está limitado por respuestas.precomprimidas.max-total-bytes.
+ *
+ * Se registra después de la cadena de Spring Security, así que CORS, autenticación y
+ * límites de peticiones ya se han aplicado.
+ */
+@Component
+public class RespuestasPrecomprimidasFilter extends OncePerRequestFilter {
+
+    private static final String PREFIX = "/api/v1/eventos";
+    private static final List<String> CACHED_HEADERS = List.of(
+            HttpHeaders.ETAG, HttpHeaders.LAST_MODIFIED, Paginacion.NEXT_CURSOR_HEADER);
+    // Parámetros de los GET de EventoController, en el orden en que forman la clave
+    private static final List<String> KEY_PARAMS = List.of(
+            "q", "tipo", "desde", "hasta", "periodo", "orden", "participantes", "cursor", "limite");
+
+    private record Snapshot(String contentType, Map<String, String> headers, byte[] identity, byte[] gzip,
+                            long eventosVersion, long usuariosVersion, long validUntil) {
+    }
+
+    private final VersionStamps versionStamps;
+    private final EventoService eventoService;
+    private final long maxTotalBytes;
+    private final int maxBytes;
+    private final Counter hits;
+    private final Counter misses;
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+    // Bytes ocupados por las entradas de snapshots; se modifica junto al mapa bajo this
+    private long totalBytes;
+
+    public RespuestasPrecomprimidasFilter(VersionStamps versionStamps,
+                                          EventoService eventoService,
+                                          @Value("${respuestas.precomprimidas.max-total-bytes:67108864}") long maxTotalBytes,
+                                          @Value("${respuestas.precomprimidas.max-bytes:1048576}") int maxBytes,
+                                          MeterRegistry meterRegistry) {
+        this.versionStamps = versionStamps;
+        this.eventoService = eventoService;
+        this.maxTotalBytes = maxTotalBytes;
+        this.maxBytes = maxBytes;
+        this.hits = Counter.builder("eventos.respuestas.hits")
+                .description("Lecturas anónimas servidas desde bytes precomprimidos")
+                .register(meterRegistry);
+        this.misses = Counter.builder("eventos.respuestas.misses")
+                .description("Lecturas anónimas que tuvieron que generar la respuesta")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        // El stream SSE no se puede almacenar en memoria ni comprimir de una vez
+        return !"GET".equals(request.getMethod()) || !path.startsWith(PREFIX) || path.endsWith("/stream") || !isAnonymous();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String key = key(request);
+        if (key == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        // Los sellos se leen antes de generar: si una escritura se confirma mientras tanto,
+        // la entrada nace ya caducada
+        long eventosVersion = versionStamps.version(VersionStamps.EVENTOS);
+        long usuariosVersion = versionStamps.version(VersionStamps.USUARIOS);
+
+        Snapshot snapshot = snapshots.get(key);
+        if (snapshot != null && isCurrent(snapshot, eventosVersion, usuariosVersion)) {
+            hits.increment();
+            write(request, response, snapshot);
+            return;
+        }
+        misses.increment();
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, wrapper);
+        if (wrapper.getStatus() != HttpServletResponse.SC_OK || wrapper.getContentSize() > maxBytes) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+
+        snapshot = snapshot(wrapper, eventosVersion, usuariosVersion);
+        store(key, snapshot, eventosVersion, usuariosVersion);
+        // Cabeceras y estado ya están en la respuesta; solo falta el cuerpo
+        wrapper.resetBuffer();
+        writeBody(request, response, snapshot);
+    }
+
+    // Clave con los parámetros conocidos en orden fijo; null si la petición trae otros o repetidos
+    private static String key(HttpServletRequest request) {
+        Map<String, String[]> parameters = request.getParameterMap();
+        StringBuilder key = new StringBuilder(request.getRequestURI());
+        int known = 0;
+        for (String name : KEY_PARAMS) {
+            String[] values = parameters.get(name);
+            if (values == null) {
+                continue;
+            }
+            if (values.length != 1) {
+                return null;
+            }
+            known++;
+            key.append(known == 1 ? '?' : '&').append(name).append('=')
+                    .append(URLEncoder.encode(values[0], StandardCharsets.UTF_8));
+        }
+        return known == parameters.size() ? key.toString() : null;
+    }
+
+    private synchronized void store(String key, Snapshot snapshot, long eventosVersion, long usuariosVersion) {
+        long size = size(key, snapshot);
+        if (size > maxTotalBytes) {
+            return;
+        }
+        Snapshot previous = snapshots.remove(key);
+        if (previous != null) {
+            totalBytes -= size(key, previous);
+        }
+        if (totalBytes + size > maxTotalBytes) {
+            // Sin sitio: primero se descartan las caducadas y, si no basta, la caché empieza de cero
+            snapshots.entrySet().removeIf(entry -> {
+                boolean stale = !isCurrent(entry.getValue(), eventosVersion, usuariosVersion);
+                if (stale) {
+                    totalBytes -= size(entry.getKey(), entry.getValue());
+                }
+                return stale;
+            });
+            if (totalBytes + size > maxTotalBytes) {
+                snapshots.clear();
+                totalBytes = 0;
+            }
+        }
+        snapshots.put(key, snapshot);
+        totalBytes += size;
+    }
+
+    private static long size(String key, Snapshot snapshot) {
+        return key.length() + (long) snapshot.identity().length + snapshot.gzip().length;
+    }
+
+    private boolean isCurrent(Snapshot snapshot, long eventosVersion, long usuariosVersion) {
+        return snapshot.eventosVersion() == eventosVersion
+                && snapshot.usuariosVersion() == usuariosVersion
+                && (snapshot.validUntil() == 0 || System.currentTimeMillis() < snapshot.validUntil());
+    }
+
+    private Snapshot snapshot(ContentCachingResponseWrapper wrapper, long eventosVersion, long usuariosVersion) throws IOException {
+        byte[] identity = wrapper.getContentAsByteArray();
+        ByteArrayOutputStream gzipBytes = new ByteArrayOutputStream(Math.max(64, identity.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipBytes)) {
+            gzip.write(identity);
+        }
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (String header : CACHED_HEADERS) {
+            String value = wrapper.getHeader(header);
+            if (value != null) {
+                headers.put(header, value);
+            }
+        }
+        // Todas las respuestas de eventos activos cambian cuando pasa la fecha del más próximo
+        return new Snapshot(wrapper.getContentType(), headers, identity, gzipBytes.toByteArray(),
+                eventosVersion, usuariosVersion, eventoService.getVigenciaActivos());
+    }
+
+    private void write(HttpServletRequest request, HttpServletResponse response, Snapshot snapshot) throws IOException {
+        snapshot.headers().forEach(response::setHeader);
+        String etag = snapshot.headers().get(HttpHeaders.ETAG);
+        if (etag != null && etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(snapshot.contentType());
+        writeBody(request, response, snapshot);
+    }
+
+    // Los bytes guardados se escriben directamente, sin copiarlos ni recomprimirlos
+    private void writeBody(HttpServletRequest request, HttpServletResponse response, Snapshot snapshot) throws IOException {
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        byte[] body = snapshot.identity();
+        if (acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            body = snapshot.gzip();
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /**
+     * Interpreta Accept-Encoding con sus pesos: "gzip;q=0" rechaza gzip y "*" lo acepta si gzip
+     * no aparece explícitamente
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double any = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.length() > 2 && parameter.substring(0, 2).equalsIgnoreCase("q=")) {
+                    try {
+                        q = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzip = q;
+            } else if (name.equals("*")) {
+                any = q;
+            }
+        }
+        return gzip != null ? gzip > 0 : any != null && any > 0;
+    }
+
+    private static boolean isAnonymous() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null || authentication instanceof AnonymousAuthenticationToken;
+    }
+}
@@ -1,10 +1,12 @@
 package com.example.ProyectoWeb.config;
 
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -12,6 +14,7 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -29,6 +32,9 @@ public class SecurityConfig implements WebMvcConfigurer {
     @Autowired
     private JwtAuthFilter jwtAuthFilter;
 
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
     private final AuthenticationProvider authProvider;
 
     @Bean
@@ -37,9 +43,14 @@ public class SecurityConfig implements WebMvcConfigurer {
                 .csrf(AbstractHttpConfigurer::disable) // Deshabilitar CSRF para APIs sin estado
                 .authorizeHttpRequests(authRequest ->
                         authRequest
+                                // El error dispatch solo escribe el estado que ya fijó el controlador (p. ej. 503 o 400);
+                                // sin esto llega como anónimo y se convierte en 403
+                                .dispatcherTypeMatchers(DispatcherType.ERROR).permitAll()
                                 .requestMatchers("/auth/**").permitAll() // Permitir acceso sin autenticación
                                 .requestMatchers("/process_payment").permitAll() // Permitir acceso sin autenticación
                                 .requestMatchers(GET, "/api/v1/eventos", "/api/v1/eventos/**").permitAll() // Permitir ver eventos sin autenticación
+                                .requestMatchers("/actuator/health").permitAll()
+                                .requestMatchers("/actuator/**").hasRole(ADMIN.name()) // Métricas solo para administradores
 
                                 .requestMatchers("/api/v1/organizador/**").hasAnyRole(ADMIN.name(), ORGANIZADOR.name())
                                 .requestMatchers(GET, "/api/v1/organizador/**").hasAnyAuthority(ADMIN_READ.name(), ORGANIZADOR_READ.name())
@@ -49,12 +60,17 @@ public class SecurityConfig implements WebMvcConfigurer {
 
                                 .anyRequest().authenticated()
                 )
+                // Sin token válido (p. ej. access token caducado) se responde 401 para que el cliente
+                // renueve la sesión con /auth/refresh; 403 queda para la falta de permisos
+                .exceptionHandling(exceptions -> exceptions
+                        .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
                 .cors(withDefaults())
                 .sessionManagement(sessionManager ->
                         sessionManager
                                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS)) // Deshabilitar manejo de sesiones
                 .authenticationProvider(authProvider)
                 .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(rateLimitFilter, JwtAuthFilter.class) // Después del JWT para poder limitar también por usuario
                 .build();
     }
 
@@ -0,0 +1,85 @@
+package com.example.ProyectoWeb.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa lecturas concurrentes idénticas: mientras una consulta para una clave está en
+ * curso, los demás hilos que piden la misma clave esperan su resultado en lugar de lanzar
+ * la suya. No guarda nada una vez terminada, así que nunca devuelve datos anteriores a la
+ * petición.
+ *
+ * El resultado se comparte entre hilos: solo debe usarse con valores inmutables o con
+ * entidades completamente inicializadas que nadie vaya a modificar.
+ */
+@Component
+public class SingleFlight {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counter[]> counters = new ConcurrentHashMap<>();
+
+    public SingleFlight(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param name nombre de la operación (etiqueta de las métricas)
+     * @param key clave dentro de la operación; llamadas con el mismo nombre y clave se agrupan
+     * @param loader consulta a ejecutar si no hay otra en curso
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String name, Object key, Supplier<T> loader) {
+        Counter[] metrics = counters.computeIfAbsent(name, this::register);
+        metrics[0].increment();
+
+        String flightKey = name + ":" + key;
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(flightKey, mine);
+        if (existing != null) {
+            metrics[1].increment();
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw e;
+            }
+        }
+
+        try {
+            T result = loader.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, mine);
+        }
+    }
+
+    private Counter[] register(String name) {
+        return new Counter[] {
+                Counter.builder("singleflight.calls")
+                        .description("Lecturas que pasaron por la agrupación de peticiones")
+                        .tag("name", name)
+                        .register(meterRegistry),
+                Counter.builder("singleflight.merged")
+                        .description("Lecturas que reutilizaron una consulta ya en curso")
+                        .tag("name", name)
+                        .register(meterRegistry)
+        };
+    }
+}
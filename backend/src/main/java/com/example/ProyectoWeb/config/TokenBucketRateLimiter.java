@@ -0,0 +1,93 @@
+package com.example.ProyectoWeb.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token buckets en memoria repartidos en franjas con su propio lock, para que
+ * claves distintas casi nunca compitan. Cada bucket son dos campos primitivos y
+ * solo se crea la primera vez que aparece una clave; los inactivos se eliminan
+ * periódicamente para acotar la memoria.
+ */
+@Component
+@RequiredArgsConstructor
+public class TokenBucketRateLimiter {
+
+    private static final int STRIPES = 64;
+
+    private final RateLimitProperties properties;
+    private final Stripe[] stripes = createStripes();
+
+    /**
+     * Consume un token del bucket de la clave.
+     * @return true si la petición está permitida
+     */
+    public boolean tryAcquire(String key, int capacity, double refillPerSecond) {
+        long now = System.nanoTime();
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                stripe.buckets.put(key, new Bucket(capacity - 1, now));
+                return capacity > 0;
+            }
+            double elapsedSeconds = (now - bucket.lastRefillNanos) / 1_000_000_000.0;
+            bucket.tokens = Math.min(capacity, bucket.tokens + elapsedSeconds * refillPerSecond);
+            bucket.lastRefillNanos = now;
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limit.idle-eviction-ms:600000}")
+    public void evictIdle() {
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(properties.getIdleEvictionMs());
+        long now = System.nanoTime();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                Iterator<Bucket> iterator = stripe.buckets.values().iterator();
+                while (iterator.hasNext()) {
+                    if (now - iterator.next().lastRefillNanos > idleNanos) {
+                        iterator.remove();
+                    }
+                }
+            }
+        }
+    }
+
+    private Stripe stripeFor(String key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    private static Stripe[] createStripes() {
+        Stripe[] result = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            result[i] = new Stripe();
+        }
+        return result;
+    }
+
+    private static final class Stripe {
+        private final Map<String, Bucket> buckets = new HashMap<>();
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long lastRefillNanos;
+
+        private Bucket(double tokens, long lastRefillNanos) {
+            this.tokens = tokens;
+            this.lastRefillNanos = lastRefillNanos;
+        }
+    }
+}
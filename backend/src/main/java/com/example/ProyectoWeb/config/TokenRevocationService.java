@@ -0,0 +1,87 @@
+package com.example.ProyectoWeb.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.ProyectoWeb.entity.TokenRevocado;
+import com.example.ProyectoWeb.repositories.ITokenRevocadoRepository;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Revocación de access tokens por "jti". Los jti revocados se guardan en la tabla
+ * token_revocado y se replican en un filtro de Bloom en memoria: un token no revocado
+ * (el caso normal) se resuelve sin tocar la base de datos, y solo los aciertos del
+ * filtro se confirman contra la tabla.
+ */
+@Service
+@RequiredArgsConstructor
+public class TokenRevocationService {
+
+    private final ITokenRevocadoRepository tokenRevocadoRepository;
+
+    @Value("${jwt.revocation.expected-entries:100000}")
+    private int expectedEntries;
+
+    @Value("${jwt.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+    // Revocaciones recibidas mientras se reconstruye el filtro, para no perderlas en el cambio
+    private Set<String> pendingDuringRebuild;
+    private final Object swapLock = new Object();
+
+    @PostConstruct
+    void init() {
+        rebuild();
+    }
+
+    public boolean isRevoked(String jti) {
+        if (jti == null || !filter.mightContain(jti)) {
+            return false;
+        }
+        return tokenRevocadoRepository.existsById(jti);
+    }
+
+    public void revoke(String jti, long expiresAtMillis) {
+        if (jti == null || expiresAtMillis <= System.currentTimeMillis()) {
+            return;
+        }
+        tokenRevocadoRepository.save(new TokenRevocado(jti, new Date(expiresAtMillis)));
+        synchronized (swapLock) {
+            filter.put(jti);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(jti);
+            }
+        }
+    }
+
+    /**
+     * Reconstruye el filtro desde la tabla (incluye revocaciones hechas por otros nodos)
+     * y borra las filas de tokens que ya han expirado.
+     */
+    @Scheduled(initialDelayString = "${jwt.revocation.rebuild-ms:300000}", fixedDelayString = "${jwt.revocation.rebuild-ms:300000}")
+    public synchronized void rebuild() {
+        synchronized (swapLock) {
+            pendingDuringRebuild = new HashSet<>();
+        }
+
+        Date ahora = new Date();
+        tokenRevocadoRepository.deleteExpirados(ahora);
+        List<String> jtis = tokenRevocadoRepository.findJtisVigentes(ahora);
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, jtis.size() * 2), falsePositiveRate);
+        jtis.forEach(rebuilt::put);
+
+        synchronized (swapLock) {
+            pendingDuringRebuild.forEach(rebuilt::put);
+            pendingDuringRebuild = null;
+            filter = rebuilt;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.ProyectoWeb.config;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.ProyectoWeb.entity.Usuario;
+import com.example.ProyectoWeb.entity.UsuarioEliminado;
+import com.example.ProyectoWeb.repositories.IUsuarioEliminadoRepository;
+import com.example.ProyectoWeb.repositories.IUsuarioRepository;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tabla en memoria con la versión de token vigente de cada usuario.
+ * Solo guarda los usuarios cuya versión es mayor que 0, así que se mantiene pequeña.
+ * Un token cuyo claim "tv" es menor que la versión registrada se rechaza.
+ *
+ * Los usuarios eliminados quedan en usuario_eliminado hasta que sus tokens expiran, y se
+ * cargan al arrancar. Los cambios hechos en otros nodos (cambio de rol, baja) se releen
+ * cuando VersionStamps ve subir el sello "usuario:N".
+ */
+@Component
+public class TokenVersionRegistry {
+
+    private final IUsuarioRepository userRepository;
+    private final IUsuarioEliminadoRepository usuarioEliminadoRepository;
+    private final VersionStamps versionStamps;
+    private final long accessTokenTtlMs;
+    private final Map<Long, Integer> versions = new ConcurrentHashMap<>();
+
+    public TokenVersionRegistry(IUsuarioRepository userRepository,
+                                IUsuarioEliminadoRepository usuarioEliminadoRepository,
+                                VersionStamps versionStamps,
+                                @Value("${jwt.access-token-ttl-ms:300000}") long accessTokenTtlMs) {
+        this.userRepository = userRepository;
+        this.usuarioEliminadoRepository = usuarioEliminadoRepository;
+        this.versionStamps = versionStamps;
+        this.accessTokenTtlMs = accessTokenTtlMs;
+    }
+
+    @PostConstruct
+    void load() {
+        for (Object[] row : userRepository.findTokenVersionsModificadas()) {
+            versions.put(((Number) row[0]).longValue(), ((Number) row[1]).intValue());
+        }
+        usuarioEliminadoRepository.findIdsVigentes(new Date()).forEach(id -> versions.put(id, Integer.MAX_VALUE));
+        versionStamps.alCambiar(this::sincronizar);
+    }
+
+    public int current(Long userId) {
+        return versions.getOrDefault(userId, 0);
+    }
+
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        return tokenVersion >= current(userId);
+    }
+
+    /**
+     * Registra la nueva versión de token de un usuario ya guardado en la base de datos.
+     */
+    public void update(Usuario usuario) {
+        versions.merge(usuario.getId(), usuario.getTokenVersion(), Math::max);
+    }
+
+    /**
+     * Invalida todos los tokens de un usuario eliminado, también tras un reinicio y en los
+     * demás nodos. Debe llamarse dentro de la transacción que borra al usuario.
+     */
+    public void invalidate(Long userId) {
+        usuarioEliminadoRepository.save(new UsuarioEliminado(userId, new Date(System.currentTimeMillis() + accessTokenTtlMs)));
+        AfterCommit.run(() -> versions.put(userId, Integer.MAX_VALUE));
+    }
+
+    // Relee la versión de los usuarios modificados en otros nodos; los que ya no existen se invalidan
+    void sincronizar(Set<String> claves) {
+        List<Long> ids = new ArrayList<>();
+        for (String clave : claves) {
+            Long id = VersionStamps.usuarioId(clave);
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        Set<Long> eliminados = new HashSet<>(ids);
+        for (Object[] row : userRepository.findTokenVersionsByIds(ids)) {
+            long id = ((Number) row[0]).longValue();
+            eliminados.remove(id);
+            int version = ((Number) row[1]).intValue();
+            if (version > 0) {
+                versions.merge(id, version, Math::max);
+            }
+        }
+        eliminados.forEach(id -> versions.put(id, Integer.MAX_VALUE));
+    }
+
+    // Las filas de usuarios eliminados sobran cuando sus tokens habrían expirado de todos modos
+    @Scheduled(initialDelayString = "${jwt.revocation.rebuild-ms:300000}", fixedDelayString = "${jwt.revocation.rebuild-ms:300000}")
+    public void limpiarEliminados() {
+        usuarioEliminadoRepository.deleteExpirados(new Date());
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.ProyectoWeb.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caché acotada de tokens ya verificados, indexada por el SHA-256 del token.
+ * Cada entrada caduca cuando pasa el "exp" de su token, de modo que un token
+ * nunca se acepta desde la caché después de expirar.
+ *
+ * Al llenarse se descarta la entrada más antigua (cola en orden de inserción, O(1)); como
+ * todos los tokens tienen la misma duración, es también la que antes caduca.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final Map<String, JwtClaims> entries = new ConcurrentHashMap<>();
+    // Claves en orden de inserción; puede contener claves ya borradas por caducidad, que se
+    // descartan al llegar a la cabeza. Su longitud limita el tamaño del mapa
+    private final Queue<String> order = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final int maxEntries;
+
+    public VerifiedTokenCache(@Value("${jwt.cache.max-entries:10000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public JwtClaims get(String token) {
+        String key = digest(token);
+        JwtClaims claims = entries.get(key);
+        if (claims != null && claims.isExpired(System.currentTimeMillis())) {
+            entries.remove(key, claims);
+            return null;
+        }
+        return claims;
+    }
+
+    public void put(String token, JwtClaims claims) {
+        String key = digest(token);
+        if (entries.put(key, claims) != null) {
+            return;
+        }
+        order.add(key);
+        // Cada alta descarta como mucho una clave, la más antigua
+        if (queued.incrementAndGet() > maxEntries) {
+            String eldest = order.poll();
+            if (eldest != null) {
+                queued.decrementAndGet();
+                entries.remove(eldest);
+            }
+        }
+    }
+
+    private static String digest(String token) {
+        byte[] hash = SHA256.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getEncoder().encodeToString(hash);
+    }
+}
@@ -0,0 +1,319 @@
+package com.example.ProyectoWeb.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.WebRequest;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Sellos de versión para GET condicionales (ETag / Last-Modified) y para las cachés en
+ * memoria que dependen de ellos (foto de eventos activos, respuestas precomprimidas).
+ *
+ * Cada recurso (una colección como "eventos" o una entidad como "evento:7") tiene un
+ * contador que los servicios suben al confirmar una escritura. Los controladores
+ * construyen el ETag solo con estos contadores, así que un If-None-Match que coincide
+ * se responde con 304 sin consultar la base de datos ni serializar nada.
+ *
+ * Los contadores salen de la tabla version_stamp, compartida por todos los nodos: una
+ * escritura se ve al momento en el nodo que la hace y en los demás en cuanto leen las
+ * filas modificadas (cada sellos.sincronizacion-ms). Como no dependen del proceso, el ETag
+ * sigue valiendo tras un reinicio y es el mismo en cualquier nodo. La lectura periódica
+ * tiene su propio hilo: no espera detrás de los trabajos largos del planificador compartido.
+ *
+ * Las filas de entidades ("evento:7", "usuario:3"...) sin cambios en sellos.retencion-ms se
+ * borran, y su versión más alta pasa a la fila "piso". Una entidad sin fila usa el piso como
+ * contador: nunca baja respecto a lo que ya se sirvió, así que un ETag antiguo no vuelve a
+ * coincidir con un cuerpo distinto. Las colecciones no se borran nunca.
+ */
+@Component
+public class VersionStamps {
+
+    public static final String EVENTOS = "eventos";
+    public static final String HITOS = "hitos";
+    public static final String USUARIOS = "usuarios";
+
+    // Sello de las entidades sin fila propia (borrada por antigua o nunca modificada)
+    private static final String PISO = "piso";
+
+    /**
+     * orden es el valor de la secuencia con el que se comparan las lecturas; version es lo que
+     * se publica en el ETag y coincide con orden salvo tras una subida fallida, en la que es
+     * un valor local de este nodo que no puede salir de la secuencia
+     */
+    private record Stamp(long version, long orden, long modifiedAt) {
+
+        Stamp(long version, long modifiedAt) {
+            this(version, version, modifiedAt);
+        }
+
+        boolean local() {
+            return version != orden;
+        }
+    }
+
+    private record Fila(String clave, long version, Timestamp modificado) {
+
+        Fila(ResultSet rs) throws SQLException {
+            this(rs.getString("clave"), rs.getLong("version"), rs.getTimestamp("modificado"));
+        }
+    }
+
+    // Margen de relectura: una subida con una marca de tiempo anterior a la última leída
+    // puede confirmarse un poco después que ella
+    private static final long MARGEN_SINCRONIZACION_MS = 5000;
+
+    private static final String SUBIR = "INSERT INTO version_stamp (clave, version, modificado) " +
+            "SELECT c, nextval('version_stamp_seq'), clock_timestamp() FROM unnest(?::varchar[]) c " +
+            "ON CONFLICT (clave) DO UPDATE SET version = GREATEST(version_stamp.version, EXCLUDED.version), " +
+            "modificado = EXCLUDED.modificado " +
+            "RETURNING clave, version, modificado";
+
+    // Borra las filas de entidades antiguas y sube el piso a la mayor versión borrada, en una
+    // sola sentencia: una subida concurrente de la misma clave renueva modificado y no se borra
+    private static final String PURGAR = "WITH borradas AS (" +
+            "DELETE FROM version_stamp WHERE clave LIKE '%:%' AND modificado < clock_timestamp() - ? * interval '1 millisecond' " +
+            "RETURNING version) " +
+            "INSERT INTO version_stamp (clave, version, modificado) " +
+            "SELECT '" + PISO + "', max(version), clock_timestamp() FROM borradas HAVING count(*) > 0 " +
+            "ON CONFLICT (clave) DO UPDATE SET version = GREATEST(version_stamp.version, EXCLUDED.version), " +
+            "modificado = EXCLUDED.modificado";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Stamp initial = new Stamp(0, System.currentTimeMillis());
+    private final ConcurrentMap<String, Stamp> stamps = new ConcurrentHashMap<>();
+    private final List<Consumer<Set<String>>> oyentes = new CopyOnWriteArrayList<>();
+    // Marca de tiempo (de la base de datos) de la fila más reciente leída
+    private volatile Timestamp ultimaLectura;
+    private final long sincronizacionMs;
+    private final long retencionMs;
+    // Valores locales tras una subida fallida: negativos (la secuencia empieza en 1) y con un
+    // prefijo aleatorio por proceso para que dos nodos no publiquen el mismo
+    private final AtomicLong locales = new AtomicLong(ThreadLocalRandom.current().nextLong(1L << 40) << 22);
+    private final ScheduledExecutorService planificador = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sellos-sincronizacion");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public VersionStamps(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                         @Value("${sellos.sincronizacion-ms:1000}") long sincronizacionMs,
+                         @Value("${sellos.retencion-ms:86400000}") long retencionMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sincronizacionMs = sincronizacionMs;
+        this.retencionMs = retencionMs;
+        // Se sube después de confirmar la escritura, en una transacción propia y corta para no
+        // alargar los bloqueos de la escritura con la fila de colecciones como "eventos"
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public static String evento(Long id) {
+        return "evento:" + id;
+    }
+
+    // Id del evento de una clave "evento:N", o null si la clave es de otro recurso
+    public static Long eventoId(String key) {
+        return key.startsWith("evento:") ? Long.valueOf(key.substring("evento:".length())) : null;
+    }
+
+    public static String hito(Long id) {
+        return "hito:" + id;
+    }
+
+    public static String usuario(Long id) {
+        return "usuario:" + id;
+    }
+
+    // Id del usuario de una clave "usuario:N", o null si la clave es de otro recurso
+    public static Long usuarioId(String key) {
+        return key.startsWith("usuario:") ? Long.valueOf(key.substring("usuario:".length())) : null;
+    }
+
+    /**
+     * Sube los sellos de los recursos indicados cuando se confirme la transacción en curso
+     */
+    public void bump(String... keys) {
+        AfterCommit.run(() -> subir(Arrays.stream(keys).distinct().toArray(String[]::new)));
+    }
+
+    private void subir(String[] keys) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement(SUBIR);
+                statement.setArray(1, connection.createArrayOf("varchar", keys));
+                return statement;
+            }, (ResultSet rs) -> {
+                while (rs.next()) {
+                    aplicar(new Fila(rs));
+                }
+                return null;
+            }));
+        } catch (DataAccessException e) {
+            // La escritura ya está confirmada: al menos este nodo deja de servir lo anterior con
+            // un valor que ningún otro nodo ni la secuencia pueden repetir. Los demás lo verán
+            // con la siguiente subida de la misma clave
+            System.err.println("No se pudieron guardar los sellos " + Arrays.toString(keys) + ": " + e.getMessage());
+            long now = System.currentTimeMillis();
+            for (String key : keys) {
+                Stamp old = stamp(key);
+                stamps.put(key, new Stamp(-locales.incrementAndGet(), old.orden(), now));
+            }
+        }
+    }
+
+    @PostConstruct
+    void iniciar() {
+        sincronizar();
+        planificador.scheduleWithFixedDelay(() -> {
+            try {
+                sincronizar();
+            } catch (RuntimeException e) {
+                // Se reintenta en la siguiente vuelta desde la misma marca de tiempo
+                System.err.println("No se pudieron leer los sellos de versión: " + e.getMessage());
+            }
+        }, sincronizacionMs, sincronizacionMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void cerrar() {
+        planificador.shutdownNow();
+    }
+
+    /**
+     * Registra un aviso con las claves que la sincronización ve avanzar, es decir, las subidas
+     * de otros nodos (las de este ya se aplicaron al subirlas). Se llama antes de publicar los
+     * nuevos sellos: una caché derivada que se pone al día en el aviso nunca queda detrás de
+     * un ETag ya cambiado. Si el aviso falla, los sellos no se publican y se releen en la
+     * siguiente vuelta.
+     */
+    public void alCambiar(Consumer<Set<String>> oyente) {
+        oyentes.add(oyente);
+    }
+
+    /**
+     * Lee los sellos subidos desde la última lectura, incluidos los de otros nodos
+     */
+    public void sincronizar() {
+        Timestamp desde = ultimaLectura;
+        String sql = "SELECT clave, version, modificado FROM version_stamp";
+        Object[] args = {};
+        if (desde != null) {
+            sql += " WHERE modificado > ?";
+            args = new Object[]{new Timestamp(desde.getTime() - MARGEN_SINCRONIZACION_MS)};
+        }
+        List<Fila> filas = jdbcTemplate.query(sql, (rs, rowNum) -> new Fila(rs), args);
+        if (desde != null && !oyentes.isEmpty()) {
+            Set<String> cambiadas = new HashSet<>();
+            for (Fila fila : filas) {
+                if (fila.version() > stamp(fila.clave()).orden()) {
+                    cambiadas.add(fila.clave());
+                }
+            }
+            if (!cambiadas.isEmpty()) {
+                oyentes.forEach(oyente -> oyente.accept(cambiadas));
+            }
+        }
+
+        long pisoAnterior = stamp(PISO).orden();
+        Timestamp leida = ultimaLectura;
+        for (Fila fila : filas) {
+            aplicar(fila);
+            if (leida == null || fila.modificado().after(leida)) {
+                leida = fila.modificado();
+            }
+        }
+        ultimaLectura = leida;
+        long piso = stamp(PISO).orden();
+        if (piso > pisoAnterior) {
+            // Las entidades que ya no tienen fila pasan a usar el piso, que es mayor o igual
+            stamps.entrySet().removeIf(entry -> entry.getKey().indexOf(':') >= 0
+                    && !entry.getValue().local() && entry.getValue().orden() <= piso);
+        }
+    }
+
+    /**
+     * Borra las filas de entidades sin cambios durante sellos.retencion-ms
+     */
+    @Scheduled(initialDelayString = "${sellos.purga-ms:3600000}", fixedDelayString = "${sellos.purga-ms:3600000}")
+    public void purgar() {
+        jdbcTemplate.update(PURGAR, retencionMs);
+    }
+
+    private void aplicar(Fila fila) {
+        Stamp leido = new Stamp(fila.version(), fila.modificado().getTime());
+        // Los contadores solo avanzan: una lectura atrasada no deshace una subida más reciente
+        stamps.merge(fila.clave(), leido, (old, nuevo) -> nuevo.orden() > old.orden() ? nuevo : old);
+    }
+
+    private Stamp stamp(String key) {
+        Stamp stamp = stamps.get(key);
+        if (stamp != null) {
+            return stamp;
+        }
+        return key.indexOf(':') >= 0 ? stamps.getOrDefault(PISO, initial) : initial;
+    }
+
+    // Contador actual del recurso (0 si nunca ha cambiado)
+    public long version(String key) {
+        return stamp(key).version();
+    }
+
+    /**
+     * Comprueba If-None-Match / If-Modified-Since contra los sellos de los recursos de los
+     * que depende la respuesta. Si devuelve true la respuesta ya es un 304 y el controlador
+     * debe devolver null; si no, las cabeceras ETag y Last-Modified quedan puestas.
+     */
+    public boolean checkNotModified(WebRequest request, String... keys) {
+        StringBuilder etag = etag(keys);
+        long lastModified = initial.modifiedAt();
+        for (String key : keys) {
+            lastModified = Math.max(lastModified, stamp(key).modifiedAt());
+        }
+        return request.checkNotModified(etag.append('"').toString(), lastModified);
+    }
+
+    /**
+     * Igual que checkNotModified para respuestas que además cambian con el tiempo (por ejemplo,
+     * los eventos activos). validity identifica la ventana en la que la respuesta es la misma;
+     * no se envía Last-Modified porque no cambia al cerrarse la ventana.
+     */
+    public boolean checkNotModified(WebRequest request, long validity, String... keys) {
+        StringBuilder etag = etag(keys).append('-').append(Long.toString(validity, 36));
+        return request.checkNotModified(etag.append('"').toString());
+    }
+
+    private StringBuilder etag(String... keys) {
+        StringBuilder etag = new StringBuilder("\"");
+        for (String key : keys) {
+            // La clave forma parte del ETag: dos usuarios con el mismo contador no comparten respuesta
+            if (etag.length() > 1) etag.append('-');
+            etag.append(key).append('.').append(stamp(key).version());
+        }
+        return etag;
+    }
+}
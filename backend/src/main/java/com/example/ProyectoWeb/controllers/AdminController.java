@@ -1,17 +1,28 @@
 package com.example.ProyectoWeb.controllers;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import com.example.ProyectoWeb.entity.Role;
 import com.example.ProyectoWeb.entity.Usuario;
-import com.example.ProyectoWeb.repositories.IUsuarioRepository;
+import com.example.ProyectoWeb.services.ExportacionService;
+import com.example.ProyectoWeb.services.ImportacionUsuariosService;
+import com.example.ProyectoWeb.services.UsuarioService;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
 
 @RestController
 @RequestMapping("api/v1/admin")
@@ -19,7 +30,13 @@ import com.example.ProyectoWeb.repositories.IUsuarioRepository;
 public class AdminController {
 
     @Autowired
-    private IUsuarioRepository userRepository;
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private ImportacionUsuariosService importacionUsuariosService;
+
+    @Autowired
+    private ExportacionService exportacionService;
 
     // Panel de administrador
     @GetMapping
@@ -37,14 +54,72 @@ public class AdminController {
     @PutMapping("/asignar-rol")
     @PreAuthorize("hasAuthority('admin:update')")
     public ResponseEntity<String> assignRoleToUser(@RequestBody AsignarRolRequest request) {
-        Usuario user = userRepository.findByUsername(request.getUsername())
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-        user.setRol(Role.valueOf(request.getRol()));
-
-        userRepository.save(user);
+        Usuario user = usuarioService.getUserByUsername(request.getUsername());
+        // Pasa por UsuarioService para que los tokens con el rol anterior queden invalidados
+        usuarioService.cambiarRolUsuario(user.getId(), request.getRol());
         return ResponseEntity.ok("Rol asignado correctamente");
     }
 
+    /**
+     * Importa usuarios en bloque desde un CSV (correo,nombre,apellido,username,password)
+     * o un NDJSON con los mismos campos. El fichero se procesa en segundo plano.
+     * @return El jobId para consultar el progreso
+     */
+    @PostMapping(value = "/usuarios/importar", consumes = {"text/csv", "application/x-ndjson"})
+    @PreAuthorize("hasAuthority('admin:write')")
+    public ResponseEntity<?> importarUsuarios(HttpServletRequest request) throws IOException {
+        ImportacionUsuariosService.Formato formato = request.getContentType().startsWith("text/csv")
+                ? ImportacionUsuariosService.Formato.CSV
+                : ImportacionUsuariosService.Formato.NDJSON;
+        String jobId = importacionUsuariosService.iniciar(request.getInputStream(), formato);
+        return ResponseEntity.accepted().body(Map.of("jobId", jobId));
+    }
+
+    /**
+     * Devuelve el progreso y los errores por fila de una importación
+     */
+    @GetMapping("/usuarios/importar/{jobId}")
+    @PreAuthorize("hasAuthority('admin:read')")
+    public ResponseEntity<?> getEstadoImportacion(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.ok(importacionUsuariosService.getEstado(jobId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(404).body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Exporta eventos, participantes, invitados externos o hitos en CSV o NDJSON.
+     * La respuesta se genera según se leen las filas, sin cargar la exportación en memoria.
+     * @param tipo "eventos", "participantes", "invitados" o "hitos"
+     * @param formato "csv" o "ndjson"
+     * @param eventoId Limita la exportación a un evento
+     * @param gzip Devuelve el fichero comprimido (.gz)
+     */
+    @GetMapping("/exportar/{tipo}")
+    @PreAuthorize("hasAuthority('admin:read')")
+    public ResponseEntity<StreamingResponseBody> exportar(@PathVariable String tipo,
+                                                         @RequestParam(defaultValue = "csv") String formato,
+                                                         @RequestParam(required = false) Long eventoId,
+                                                         @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportacionService.Tipo tipoExportacion;
+        ExportacionService.Formato formatoExportacion;
+        try {
+            tipoExportacion = ExportacionService.Tipo.valueOf(tipo.toUpperCase(Locale.ROOT));
+            formatoExportacion = ExportacionService.Formato.valueOf(formato.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Tipo o formato de exportación no válido");
+        }
+        String fichero = tipo.toLowerCase(Locale.ROOT) + "." + formatoExportacion.extension + (gzip ? ".gz" : "");
+        StreamingResponseBody body = out -> exportacionService.exportar(tipoExportacion, formatoExportacion, eventoId, gzip, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fichero + "\"")
+                .contentType(gzip
+                        ? MediaType.parseMediaType("application/gzip")
+                        : MediaType.parseMediaType(formatoExportacion.contentType + ";charset=UTF-8"))
+                .body(body);
+    }
+
     @DeleteMapping
     @PreAuthorize("hasAuthority('admin:delete')")
     public String delete() {
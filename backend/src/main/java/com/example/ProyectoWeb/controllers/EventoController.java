@@ -1,23 +1,38 @@
 package com.example.ProyectoWeb.controllers;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.example.ProyectoWeb.config.JwtPrincipal;
+import com.example.ProyectoWeb.config.VersionStamps;
 import com.example.ProyectoWeb.entity.Evento;
-import com.example.ProyectoWeb.entity.Usuario;
+import com.example.ProyectoWeb.entity.EventoResumen;
+import com.example.ProyectoWeb.entity.EventosDashboard;
+import com.example.ProyectoWeb.entity.TipoEvento;
 import com.example.ProyectoWeb.services.EventoService;
+import com.example.ProyectoWeb.services.EventosStream;
 import com.example.ProyectoWeb.services.UsuarioService;
 import com.example.ProyectoWeb.entity.InvitadoExterno;
 import com.example.ProyectoWeb.services.InvitadoExternoService;
+import com.example.ProyectoWeb.pagination.Paginacion;
 
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("api/v1/eventos")
@@ -31,6 +46,15 @@ public class EventoController {
     @Autowired
     private InvitadoExternoService invitadoExternoService;
 
+    @Autowired
+    private Paginacion paginacion;
+
+    @Autowired
+    private VersionStamps versionStamps;
+
+    @Autowired
+    private EventosStream eventosStream;
+
     // Para registrarse a un evento
     @PutMapping("/{id}/inscribirse")
     public ResponseEntity<?> addParticipante(@PathVariable Long id) {
@@ -53,8 +77,12 @@ public class EventoController {
     // Modificar un evento
     @PutMapping("/{id}/modificar-evento")
     @PreAuthorize("hasAnyAuthority('admin:update', 'organizador:update')")
-    public Evento updateEvento(@RequestBody Evento evento, @PathVariable Long id) {
-        return eventoService.updateEventoById(evento, id);
+    public ResponseEntity<?> updateEvento(@RequestBody Evento evento, @PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(eventoService.updateEventoById(evento, id));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
     }
 
     // Eliminar un evento
@@ -77,18 +105,41 @@ public class EventoController {
         }
     }
 
+    /**
+     * Eventos activos ordenados por fecha, paginados por cursor (cabecera X-Next-Cursor)
+     * @param participantes si es true, cada evento incluye los usernames de sus participantes
+     */
     @GetMapping("/activos")
-    public List<Evento> getEventosActivos() {
-        return eventoService.getEventosActivos();
+    public ResponseEntity<List<EventoResumen>> getEventosActivos(@RequestParam(required = false) String cursor,
+                                                                 @RequestParam(required = false) Integer limite,
+                                                                 @RequestParam(defaultValue = "false") boolean participantes,
+                                                                 WebRequest request) {
+        if (versionStamps.checkNotModified(request, eventoService.getVigenciaActivos(),
+                VersionStamps.EVENTOS, VersionStamps.USUARIOS)) {
+            return null;
+        }
+        try {
+            return Paginacion.respuesta(eventoService.getEventosActivos(cursor, paginacion.limite(limite), participantes));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
         @GetMapping("/activos3")
-    public List<Evento> getEventosActivos3() {
-        return eventoService.getEventosActivos3();
+    public List<EventoResumen> getEventosActivos3(@RequestParam(defaultValue = "false") boolean participantes,
+                                                  WebRequest request) {
+        if (versionStamps.checkNotModified(request, eventoService.getVigenciaActivos(),
+                VersionStamps.EVENTOS, VersionStamps.USUARIOS)) {
+            return null;
+        }
+        return eventoService.getEventosActivos3(participantes);
     }
 
     @GetMapping("/activos/participantes")
-    public List<Map<String, Object>> getCantidadParticipantesEventosActivos() {
+    public List<Map<String, Object>> getCantidadParticipantesEventosActivos(WebRequest request) {
+        if (versionStamps.checkNotModified(request, eventoService.getVigenciaActivos(), VersionStamps.EVENTOS)) {
+            return null;
+        }
         List<Object[]> results = eventoService.getCantidadParticipantesEventosActivos();
         List<Map<String, Object>> response = new ArrayList<>();
         for (Object[] row : results) {
@@ -106,74 +157,138 @@ public class EventoController {
      * @return El próximo evento
      */
     @GetMapping("/proximo")
-    public ResponseEntity<Evento> getProximoEvento() {
-        Evento proximoEvento = eventoService.getEventoMasProximo();
+    public ResponseEntity<EventoResumen> getProximoEvento(WebRequest request) {
+        if (versionStamps.checkNotModified(request, eventoService.getVigenciaActivos(), VersionStamps.EVENTOS)) {
+            return null;
+        }
+        EventoResumen proximoEvento = eventoService.getEventoMasProximo();
         if (proximoEvento == null) {
             return ResponseEntity.ok().build(); // Devuelve 200 OK con cuerpo vacío si no hay evento próximo
         }
         return ResponseEntity.ok(proximoEvento);
     }
 
+    /**
+     * Búsqueda de eventos por texto (nombre, empresa y descripción), sin distinguir
+     * mayúsculas ni acentos y ordenada por relevancia
+     * @param q Texto a buscar; todos sus términos deben aparecer y el último casa como prefijo
+     * @param tipo Tipo de evento, opcional
+     * @param desde Fecha mínima (yyyy-MM-dd), opcional
+     * @param hasta Fecha máxima (yyyy-MM-dd, inclusive), opcional
+     * @return Página de eventos (cursor siguiente en la cabecera X-Next-Cursor)
+     */
+    @GetMapping("/buscar")
+    public ResponseEntity<?> buscarEventos(@RequestParam String q,
+                                           @RequestParam(required = false) TipoEvento tipo,
+                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+                                           @RequestParam(required = false) String cursor,
+                                           @RequestParam(required = false) Integer limite,
+                                           WebRequest request) {
+        if (q.isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("message", "El texto de búsqueda es obligatorio"));
+        }
+        if (versionStamps.checkNotModified(request, VersionStamps.EVENTOS)) {
+            return null;
+        }
+        ZoneId zona = ZoneId.systemDefault();
+        Date fechaDesde = desde != null ? Date.from(desde.atStartOfDay(zona).toInstant()) : null;
+        // "hasta" incluye todo ese día
+        Date fechaHasta = hasta != null ? Date.from(hasta.plusDays(1).atStartOfDay(zona).toInstant().minusMillis(1)) : null;
+        try {
+            return Paginacion.respuesta(eventoService.buscarEventos(
+                    q, tipo, fechaDesde, fechaHasta, cursor, paginacion.limite(limite)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Cifras del panel de inicio (activos3, proximo, count y total-participantes) en una sola llamada
+     * @return Próximos eventos, evento más cercano, número de eventos activos y total de participantes
+     */
+    @GetMapping("/dashboard")
+    public EventosDashboard getDashboard(WebRequest request) {
+        if (versionStamps.checkNotModified(request, eventoService.getVigenciaActivos(), VersionStamps.EVENTOS)) {
+            return null;
+        }
+        return eventoService.getDashboard();
+    }
+
+    /**
+     * Stream SSE de los eventos activos: un evento "snapshot" con el estado completo y
+     * después eventos "delta" con los cambios (participantes, altas, modificaciones y bajas).
+     * Responde 503 si se ha alcanzado el máximo de conexiones
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        try {
+            return eventosStream.suscribir();
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
+
     @GetMapping("/{id}")
-    public Evento getEventoById(@PathVariable Long id) {
-        return eventoService.getEventoById(id);
+    public Evento getEventoById(@PathVariable Long id, WebRequest request) {
+        // El detalle incluye los usernames de los participantes
+        if (versionStamps.checkNotModified(request, VersionStamps.evento(id), VersionStamps.USUARIOS)) {
+            return null;
+        }
+        return eventoService.getEventoDetalle(id);
     }
 
+    /**
+     * Eventos en los que participa el usuario autenticado, ordenados por fecha.
+     * El cursor de la página siguiente se devuelve en la cabecera X-Next-Cursor.
+     * @param periodo "proximos", "pasados" o vacío para todos
+     * @param cursor Cursor de la página anterior
+     * @param limite Tamaño de página
+     */
     @GetMapping("/mis-eventos")
-    public List<Evento> getMisEventos() {
-        // Obtiene el nombre de usuario autenticado del SecurityContext
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        
-        // Obtiene todos los eventos
-        List<Evento> todosLosEventos = eventoService.getAllEventos();
-        
-        // Filtra los eventos donde el usuario actual es participante
-        return todosLosEventos.stream()
-                .filter(evento -> evento.getParticipantes() != null && 
-                         evento.getParticipantes().contains(username))
-                .collect(Collectors.toList());
+    public ResponseEntity<List<Evento>> getMisEventos(@RequestParam(required = false) String periodo,
+                                                      @RequestParam(required = false) String cursor,
+                                                      @RequestParam(required = false) Integer limite) {
+        try {
+            return Paginacion.respuesta(eventoService.getEventosDeUsuario(
+                    currentUserId(), periodo, cursor, paginacion.limite(limite)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Con autenticación basada en claims el id ya viene en el token y no hace falta consultarlo
+    private Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication.getPrincipal() instanceof JwtPrincipal principal) {
+            return principal.id();
+        }
+        return usuarioService.getUserIdByUsername(authentication.getName());
     }
 
     /**
      * Devuelve la lista de usuarios participantes en un evento específico
      * @param id El ID del evento a consultar
-     * @return Lista de nombres de usuario de los participantes
+     * @param cursor Cursor de la página anterior (cabecera X-Next-Cursor)
+     * @param limite Tamaño de página
+     * @param orden "nombre" para ordenar por nombre y apellido; por defecto, por id
+     * @return Datos públicos de los participantes
      */
     @GetMapping("/{id}/participantes")
-    public ResponseEntity<?> getParticipantesByEventoId(@PathVariable Long id) {
+    public ResponseEntity<?> getParticipantesByEventoId(@PathVariable Long id,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) Integer limite,
+                                                        @RequestParam(required = false) String orden,
+                                                        WebRequest request) {
+        if (versionStamps.checkNotModified(request, VersionStamps.evento(id), VersionStamps.USUARIOS)) {
+            return null;
+        }
         try {
-            // Obtener el evento
-            Evento evento = eventoService.getEventoById(id);
-            
-            // Obtener la lista de nombres de usuario de los participantes
-            List<String> participantesUsernames = evento.getParticipantes();
-            
-            // Convertir los nombres de usuario en objetos con información detallada
-            List<Map<String, Object>> participantesInfo = new ArrayList<>();
-            for (String username : participantesUsernames) {
-                try {
-                    Usuario usuario = usuarioService.getUserByUsername(username);
-                    
-                    // Crear un mapa con la información que queremos devolver de cada usuario
-                    Map<String, Object> usuarioInfo = new HashMap<>();
-                    usuarioInfo.put("id", usuario.getId());
-                    usuarioInfo.put("username", usuario.getUsername());
-                    usuarioInfo.put("nombre", usuario.getNombre());
-                    usuarioInfo.put("apellido", usuario.getApellido());
-                    usuarioInfo.put("correo", usuario.getCorreo());
-                    usuarioInfo.put("role", usuario.getRol().toString());
-                    
-                    participantesInfo.add(usuarioInfo);
-                } catch (Exception e) {
-                    // Simplemente registrar el error y continuar con el siguiente usuario
-                    System.err.println("Error al procesar usuario " + username + ": " + e.getMessage());
-                }
-            }
-            
-            return ResponseEntity.ok(participantesInfo);
+            return Paginacion.respuesta(eventoService.getParticipantesDeEvento(
+                    id, cursor, paginacion.limite(limite), "nombre".equalsIgnoreCase(orden)));
         } catch (RuntimeException e) {
-            // Devolver una lista vacía en caso de error, en lugar de null
-            return ResponseEntity.ok(new ArrayList<>());
+            // Cursor manipulado o evento inexistente
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
         }
     }
 
@@ -182,7 +297,10 @@ public class EventoController {
      * @return El número total de participantes
      */
     @GetMapping("/activos/total-participantes")
-    public ResponseEntity<Integer> getTotalParticipantesEventosActivos() {
+    public ResponseEntity<Integer> getTotalParticipantesEventosActivos(WebRequest request) {
+        if (versionStamps.checkNotModified(request, eventoService.getVigenciaActivos(), VersionStamps.EVENTOS)) {
+            return null;
+        }
         Integer totalParticipantes = eventoService.getTotalParticipantesEventosActivos();
         return ResponseEntity.ok(totalParticipantes);
     }
@@ -192,7 +310,10 @@ public class EventoController {
      * @return El número total de eventos activos
      */
     @GetMapping("/activos/count")
-    public ResponseEntity<Integer> getCountEventosActivos() {
+    public ResponseEntity<Integer> getCountEventosActivos(WebRequest request) {
+        if (versionStamps.checkNotModified(request, eventoService.getVigenciaActivos(), VersionStamps.EVENTOS)) {
+            return null;
+        }
         Integer countEventos = eventoService.getCountEventosActivos();
         return ResponseEntity.ok(countEventos);
     }
@@ -278,12 +399,22 @@ public class EventoController {
     }
 
     /**
-     * Devuelve todos los eventos, incluyendo los pasados
-     * @return Lista completa de eventos
+     * Devuelve todos los eventos, incluyendo los pasados, paginados por cursor
+     * @return Página de eventos (cursor siguiente en la cabecera X-Next-Cursor)
      */
     @GetMapping("/historico")
     @PreAuthorize("hasAnyAuthority('admin:read') or hasRole('ADMIN')")
-    public List<Evento> getEventosHistorico() {
-        return eventoService.getAllEventos();  // Asumiendo que este método ya existe
+    public ResponseEntity<List<EventoResumen>> getEventosHistorico(@RequestParam(required = false) String cursor,
+                                                                   @RequestParam(required = false) Integer limite,
+                                                                   @RequestParam(defaultValue = "false") boolean participantes,
+                                                                   WebRequest request) {
+        if (versionStamps.checkNotModified(request, VersionStamps.EVENTOS, VersionStamps.USUARIOS)) {
+            return null;
+        }
+        try {
+            return Paginacion.respuesta(eventoService.getEventosHistorico(cursor, paginacion.limite(limite), participantes));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 }
\ No newline at end of file
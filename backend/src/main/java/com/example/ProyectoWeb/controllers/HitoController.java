@@ -1,11 +1,14 @@
 package com.example.ProyectoWeb.controllers;
 
+import com.example.ProyectoWeb.config.VersionStamps;
 import com.example.ProyectoWeb.entity.Hito;
+import com.example.ProyectoWeb.pagination.Paginacion;
 import com.example.ProyectoWeb.services.HitoService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -15,6 +18,8 @@ import java.util.List;
 public class HitoController {
 
     private final HitoService hitoService;
+    private final Paginacion paginacion;
+    private final VersionStamps versionStamps;
 
     @PostMapping("/{eventoId}/logro")
     public ResponseEntity<?> crearHitoParaParticipante(
@@ -41,7 +46,10 @@ public class HitoController {
      * @return Lista de hitos
      */
     @GetMapping("/evento/{eventoId}")
-    public ResponseEntity<?> getHitosByEventoId(@PathVariable Long eventoId) {
+    public ResponseEntity<?> getHitosByEventoId(@PathVariable Long eventoId, WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
         try {
             List<Hito> hitos = hitoService.getHitosByEventoId(eventoId);
             return ResponseEntity.ok(hitos);
@@ -91,13 +99,27 @@ public class HitoController {
     }
 
     /**
-     * Obtiene todos los hitos
-     * @return Lista de todos los hitos
+     * Obtiene todos los hitos, paginados por cursor
+     * @return Página de hitos (cursor siguiente en la cabecera X-Next-Cursor)
      */
     @GetMapping
-    public ResponseEntity<List<Hito>> getAllHitos() {
-        List<Hito> hitos = hitoService.getAllHitos();
-        return ResponseEntity.ok(hitos);
+    public ResponseEntity<List<Hito>> getAllHitos(@RequestParam(required = false) String cursor,
+                                                  @RequestParam(required = false) Integer limite,
+                                                  WebRequest request) {
+        if (notModified(request)) {
+            return null;
+        }
+        try {
+            return Paginacion.respuesta(hitoService.getHitos(cursor, paginacion.limite(limite)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Los hitos se serializan con su beneficiario y su evento, así que dependen de las tres colecciones
+    private boolean notModified(WebRequest request) {
+        return versionStamps.checkNotModified(request,
+                VersionStamps.HITOS, VersionStamps.EVENTOS, VersionStamps.USUARIOS);
     }
 
     // DTO para la petición
@@ -3,12 +3,19 @@ package com.example.ProyectoWeb.controllers;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import com.example.ProyectoWeb.config.JwtPrincipal;
+import com.example.ProyectoWeb.config.VersionStamps;
 import com.example.ProyectoWeb.entity.Evento;
 import com.example.ProyectoWeb.entity.Hito;
 import com.example.ProyectoWeb.entity.Usuario;
+import com.example.ProyectoWeb.pagination.CursorPage;
+import com.example.ProyectoWeb.pagination.Paginacion;
+import com.example.ProyectoWeb.services.EventoService;
 import com.example.ProyectoWeb.services.UsuarioService;
 import com.example.ProyectoWeb.services.HitoService;
 
@@ -26,9 +33,21 @@ public class UsuarioController {
     @Autowired
     private HitoService hitoService;
 
+    @Autowired
+    private EventoService eventoService;
+
+    @Autowired
+    private Paginacion paginacion;
+
+    @Autowired
+    private VersionStamps versionStamps;
+
     // Información de perfil propio
     @GetMapping("/perfil")
-    public ResponseEntity<Map<String, Object>> getUserProfile() {
+    public ResponseEntity<Map<String, Object>> getUserProfile(WebRequest request) {
+        if (versionStamps.checkNotModified(request, VersionStamps.usuario(currentUserId()))) {
+            return null;
+        }
         String username = SecurityContextHolder.getContext().getAuthentication().getName();
         Usuario usuario = usuarioService.getUserByUsername(username);
         
@@ -43,13 +62,17 @@ public class UsuarioController {
         
         return ResponseEntity.ok(response);
     }
-    // Eventos de usuario
+    // Eventos de usuario, paginados por cursor (cabecera X-Next-Cursor)
     @GetMapping("/mis-eventos")
-    public ResponseEntity<List<Evento>> getEventosByUsuario() {
+    public ResponseEntity<List<Evento>> getEventosByUsuario(@RequestParam(required = false) String cursor,
+                                                            @RequestParam(required = false) Integer limite) {
         String username = SecurityContextHolder.getContext().getAuthentication().getName(); // Obtener el username del usuario autenticado
-        Long id = usuarioService.getUserByUsername(username).getId();
-        List<Evento> eventos = usuarioService.getMyEvents(id);
-        return ResponseEntity.ok(eventos);
+        Long id = usuarioService.getUserIdByUsername(username);
+        try {
+            return Paginacion.respuesta(eventoService.getEventosDeUsuario(id, null, cursor, paginacion.limite(limite)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     // Editar perfil
     @PutMapping("/perfil/Editar")
@@ -76,26 +99,32 @@ public class UsuarioController {
     }
 
     /**
-     * Obtiene todos los usuarios del sistema excepto el usuario actual
+     * Obtiene los usuarios del sistema excepto el usuario actual, paginados por cursor
      * Restringido solo a administradores
-     * @return Lista de todos los usuarios excepto el usuario actual
+     * @return Página de usuarios (cursor siguiente en la cabecera X-Next-Cursor)
      */
     @GetMapping("/todos")
     @PreAuthorize("hasAnyAuthority('admin:write', 'organizador:write') or hasRole('admin') or hasRole('ADMIN')")
-    public ResponseEntity<List<Map<String, Object>>> getAllUsers() {
+    public ResponseEntity<List<Map<String, Object>>> getAllUsers(@RequestParam(required = false) String cursor,
+                                                                 @RequestParam(required = false) Integer limite,
+                                                                 WebRequest request) {
+        // El listado excluye al usuario actual, así que el ETag depende también de quién lo pide
+        if (versionStamps.checkNotModified(request, VersionStamps.USUARIOS, VersionStamps.usuario(currentUserId()))) {
+            return null;
+        }
         // Obtener el nombre de usuario del usuario autenticado actual
         String currentUsername = SecurityContextHolder.getContext().getAuthentication().getName();
         
-        // Obtener todos los usuarios
-        List<Usuario> usuarios = usuarioService.getAllUsers();
-        
-        // Filtrar para excluir al usuario actual
-        List<Usuario> filteredUsuarios = usuarios.stream()
-            .filter(usuario -> !usuario.getUsername().equals(currentUsername))
-            .toList();
+        // Obtener la página de usuarios, excluyendo al usuario actual
+        CursorPage<Usuario> usuarios;
+        try {
+            usuarios = usuarioService.getUsuarios(currentUsername, cursor, paginacion.limite(limite));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
         
         // Mapear los usuarios para excluir información sensible como contraseñas
-        List<Map<String, Object>> usuariosDTO = filteredUsuarios.stream().map(usuario -> {
+        List<Map<String, Object>> usuariosDTO = usuarios.items().stream().map(usuario -> {
             Map<String, Object> map = new HashMap<>();
             map.put("id", usuario.getId());
             map.put("username", usuario.getUsername());
@@ -106,7 +135,7 @@ public class UsuarioController {
             return map;
         }).toList();
         
-        return ResponseEntity.ok(usuariosDTO);
+        return Paginacion.respuesta(new CursorPage<>(usuariosDTO, usuarios.nextCursor()));
     }
 
     /**
@@ -151,7 +180,11 @@ public class UsuarioController {
      * @return Lista de hitos ganados por el usuario
      */
     @GetMapping("/mis-hitos-ganados")
-    public ResponseEntity<List<Hito>> getHitosGanados() {
+    public ResponseEntity<List<Hito>> getHitosGanados(WebRequest request) {
+        if (versionStamps.checkNotModified(request, VersionStamps.HITOS, VersionStamps.EVENTOS,
+                VersionStamps.USUARIOS, VersionStamps.usuario(currentUserId()))) {
+            return null;
+        }
         // Obtener el usuario autenticado
         String username = SecurityContextHolder.getContext().getAuthentication().getName();
         Usuario usuario = usuarioService.getUserByUsername(username);
@@ -161,4 +194,13 @@ public class UsuarioController {
         
         return ResponseEntity.ok(hitosGanados);
     }
+
+    // Con autenticación basada en claims el id ya viene en el token y no hace falta consultarlo
+    private Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication.getPrincipal() instanceof JwtPrincipal principal) {
+            return principal.id();
+        }
+        return usuarioService.getUserIdByUsername(authentication.getName());
+    }
 }
@@ -0,0 +1,37 @@
+package com.example.ProyectoWeb.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.ToString;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.util.Date;
+
+// Usuario en la lista de espera de un evento completo; el id creciente da el orden de llegada
+@Data
+@Entity
+@Table(name = "lista_espera",
+        uniqueConstraints = @UniqueConstraint(name = "uk_lista_espera_evento_usuario", columnNames = {"evento_id", "usuario_id"}),
+        indexes = @Index(name = "idx_lista_espera_evento_orden", columnList = "evento_id, id"))
+public class EsperaEvento {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "evento_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Evento evento;
+
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "usuario_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Usuario usuario;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "fecha_solicitud", nullable = false)
+    private Date fechaSolicitud;
+}
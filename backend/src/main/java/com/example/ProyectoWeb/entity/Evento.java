@@ -1,12 +1,17 @@
 package com.example.ProyectoWeb.entity;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Data
@@ -34,14 +39,42 @@ public class Evento {
     @Column(length = 500)
     private String descripcion;
 
-    // Participantes (usuarios inscritos)
+    // Plazas del evento; null significa sin límite
+    private Integer capacidad;
+
+    // Número de participantes (plazas ocupadas). Se actualiza en la misma transacción que cada
+    // inscripción o baja con las sentencias atómicas de IEventoRepository, por eso no se incluye
+    // en los UPDATE de la entidad (no pisaría inscripciones concurrentes). ReconciliacionParticipantes
+    // corrige cualquier desviación respecto a evento_usuario
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @ColumnDefault("0")
+    @Column(name = "cantidad_participantes", nullable = false, updatable = false)
+    private int cantidadParticipantes;
+
+    // Evento terminado y fuera de los índices de eventos actuales. Lo marca ArchivadoEventos
+    // en segundo plano; las consultas de activos lo usan para recorrer solo el índice parcial
+    @JsonIgnore
+    @ColumnDefault("false")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private boolean archivado;
+
+    // Contador de cambios para bloqueo optimista; los ETag se sirven desde VersionStamps
+    @JsonIgnore
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
+
+    // Participantes (usuarios inscritos). Es un Set para que evento_usuario tenga
+    // clave primaria (evento_id, usuario_id); las inscripciones se escriben directamente
+    // sobre esa tabla desde IEventoRepository sin cargar la colección
     @ManyToMany
     @JoinTable(
             name = "evento_usuario",
             joinColumns = @JoinColumn(name = "evento_id"),
             inverseJoinColumns = @JoinColumn(name = "usuario_id")
     )
-    private List<Usuario> participantes = new ArrayList<>();
+    private Set<Usuario> participantes = new HashSet<>();
 
     public List<String> getParticipantes() {
         return this.participantes.stream().map(Usuario::getUsername).toList();
@@ -74,10 +107,4 @@ public class Evento {
         this.invitadosExternos.remove(invitado);
         invitado.setEvento(null);
     }
-
-    // Cantidad de participantes calculada dinámicamente
-    @Transient
-    public int getCantidadParticipantes() {
-        return this.participantes.size();
-    }
 }
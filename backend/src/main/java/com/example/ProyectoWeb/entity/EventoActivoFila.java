@@ -0,0 +1,7 @@
+package com.example.ProyectoWeb.entity;
+
+// Fila de evento activo con los totales de todos los activos calculados por funciones de ventana
+public interface EventoActivoFila extends EventoResumenFila {
+    Long getTotalEventos();
+    Long getTotalParticipantes();
+}
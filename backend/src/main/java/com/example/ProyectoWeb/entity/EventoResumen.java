@@ -0,0 +1,46 @@
+package com.example.ProyectoWeb.entity;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Evento tal y como se devuelve en los listados: solo contadores y, si se piden,
+ * los usernames de los participantes. El detalle de un evento sigue serializando la entidad.
+ */
+@Data
+public class EventoResumen {
+    private Long id;
+    private String nombre;
+    private TipoEvento tipo;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "dd-MM-yyy")
+    private Date fecha;
+
+    private String empresa;
+    private String descripcion;
+    private Integer capacidad;
+    private long cantidadParticipantes;
+    private long cantidadInvitadosExternos;
+
+    // Solo presente cuando el listado se pide con participantes=true
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<String> participantes;
+
+    public static EventoResumen from(EventoResumenFila fila) {
+        EventoResumen resumen = new EventoResumen();
+        resumen.setId(fila.getId());
+        resumen.setNombre(fila.getNombre());
+        resumen.setTipo(fila.getTipo() != null ? TipoEvento.valueOf(fila.getTipo()) : null);
+        resumen.setFecha(fila.getFecha());
+        resumen.setEmpresa(fila.getEmpresa());
+        resumen.setDescripcion(fila.getDescripcion());
+        resumen.setCapacidad(fila.getCapacidad());
+        resumen.setCantidadParticipantes(fila.getCantidadParticipantes() != null ? fila.getCantidadParticipantes() : 0);
+        resumen.setCantidadInvitadosExternos(fila.getCantidadInvitadosExternos() != null ? fila.getCantidadInvitadosExternos() : 0);
+        return resumen;
+    }
+}
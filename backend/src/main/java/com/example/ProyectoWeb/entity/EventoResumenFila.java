@@ -0,0 +1,16 @@
+package com.example.ProyectoWeb.entity;
+
+import java.util.Date;
+
+// Proyección de una fila de listado de eventos con los contadores calculados en la propia consulta
+public interface EventoResumenFila {
+    Long getId();
+    String getNombre();
+    String getTipo();
+    Date getFecha();
+    String getEmpresa();
+    String getDescripcion();
+    Integer getCapacidad();
+    Long getCantidadParticipantes();
+    Long getCantidadInvitadosExternos();
+}
@@ -0,0 +1,16 @@
+package com.example.ProyectoWeb.entity;
+
+import java.util.List;
+
+/**
+ * Cifras del panel de inicio en una sola respuesta
+ * @param proximos los tres próximos eventos activos
+ * @param proximo el evento activo más cercano, o null
+ * @param eventosActivos número de eventos activos
+ * @param totalParticipantes participantes sumando todos los eventos activos
+ */
+public record EventosDashboard(List<EventoResumen> proximos,
+                               EventoResumen proximo,
+                               int eventosActivos,
+                               long totalParticipantes) {
+}
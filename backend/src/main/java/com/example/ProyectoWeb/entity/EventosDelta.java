@@ -0,0 +1,17 @@
+package com.example.ProyectoWeb.entity;
+
+import java.util.List;
+
+/**
+ * Mensaje del stream de eventos activos. En un "snapshot" eventos contiene todos los
+ * activos; en un "delta", solo los que cambiaron desde el mensaje anterior.
+ * @param eventos eventos activos nuevos o modificados (incluye cambios de participantes)
+ * @param eliminados ids de eventos borrados o que han dejado de estar activos
+ * @param eventosActivos número total de eventos activos
+ * @param totalParticipantes participantes sumando todos los eventos activos
+ */
+public record EventosDelta(List<EventoResumen> eventos,
+                           List<Long> eliminados,
+                           int eventosActivos,
+                           long totalParticipantes) {
+}
@@ -1,8 +1,10 @@
 package com.example.ProyectoWeb.entity;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.Date;
 
@@ -39,4 +41,11 @@ public class Hito {
     @ManyToOne
     @JoinColumn(name = "evento_id", nullable = true)
     private Evento eventoRelacionado;
+
+    // Contador de cambios para bloqueo optimista; los ETag se sirven desde VersionStamps
+    @JsonIgnore
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
 }
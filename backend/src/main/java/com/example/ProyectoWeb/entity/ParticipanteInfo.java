@@ -0,0 +1,10 @@
+package com.example.ProyectoWeb.entity;
+
+// Proyección con los datos públicos de un participante de evento; la lista es de acceso
+// anónimo, así que no incluye correo ni rol
+public interface ParticipanteInfo {
+    Long getId();
+    String getUsername();
+    String getNombre();
+    String getApellido();
+}
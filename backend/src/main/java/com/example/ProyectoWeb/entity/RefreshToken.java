@@ -0,0 +1,42 @@
+package com.example.ProyectoWeb.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.ToString;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.util.Date;
+
+@Data
+@Entity
+@Table(name = "refresh_token", indexes = {
+        @Index(name = "idx_refresh_token_familia", columnList = "familia"),
+        @Index(name = "idx_refresh_token_expira_en", columnList = "expira_en")
+})
+public class RefreshToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // SHA-256 (hex) del token; el valor en claro solo lo conoce el cliente
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+    private String tokenHash;
+
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "usuario_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Usuario usuario;
+
+    // Todos los tokens obtenidos por rotación desde un mismo login comparten familia
+    @Column(nullable = false, length = 36)
+    private String familia;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "expira_en", nullable = false)
+    private Date expiraEn;
+
+    @Column(nullable = false)
+    private boolean usado;
+}
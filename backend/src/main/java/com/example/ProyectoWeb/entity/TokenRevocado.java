@@ -0,0 +1,27 @@
+package com.example.ProyectoWeb.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "token_revocado", indexes = {
+        @Index(name = "idx_token_revocado_expira_en", columnList = "expira_en")
+})
+public class TokenRevocado {
+    // Claim "jti" del access token revocado
+    @Id
+    @Column(length = 36)
+    private String jti;
+
+    // A partir de esta fecha el token ya no es válido de todos modos y la fila puede borrarse
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "expira_en", nullable = false)
+    private Date expiraEn;
+}
@@ -1,8 +1,10 @@
 package com.example.ProyectoWeb.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
@@ -33,6 +35,20 @@ public class Usuario implements UserDetails {
 
     @Enumerated(EnumType.STRING)
     Role rol;
+
+    // Versión de los tokens emitidos; se incrementa al cambiar el rol para invalidar los anteriores
+    @JsonIgnore
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(name = "token_version", nullable = false)
+    private int tokenVersion = 0;
+
+    // Contador de cambios para bloqueo optimista; los ETag se sirven desde VersionStamps
+    @JsonIgnore
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
     
     @OneToOne(mappedBy = "usuario")
     @JsonManagedReference
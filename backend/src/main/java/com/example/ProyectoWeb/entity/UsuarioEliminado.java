@@ -0,0 +1,27 @@
+package com.example.ProyectoWeb.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "usuario_eliminado", indexes = {
+        @Index(name = "idx_usuario_eliminado_expira_en", columnList = "expira_en")
+})
+public class UsuarioEliminado {
+    // Id del usuario eliminado (ya no existe en la tabla usuario)
+    @Id
+    @Column(name = "usuario_id")
+    private Long usuarioId;
+
+    // A partir de esta fecha ningún token del usuario es válido de todos modos y la fila puede borrarse
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "expira_en", nullable = false)
+    private Date expiraEn;
+}
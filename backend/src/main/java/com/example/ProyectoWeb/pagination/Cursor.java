@@ -0,0 +1,96 @@
+package com.example.ProyectoWeb.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Cursores opacos para paginación keyset. Codifican la clave de ordenación del último
+ * elemento de la página (por ejemplo fecha e id), de modo que la página siguiente se
+ * obtiene con un predicado indexado en lugar de un OFFSET.
+ */
+public final class Cursor {
+
+    // Límites del rango de fechas para la primera página y los filtros sin cota
+    public static final Date FECHA_MIN = Date.from(Instant.parse("0001-01-01T00:00:00Z"));
+    public static final Date FECHA_MAX = Date.from(Instant.parse("9999-12-31T23:59:59Z"));
+
+    private static final String SEPARATOR = "|";
+
+    // Posición de un elemento ordenado por (fecha, id)
+    public record FechaId(Date fecha, long id) {
+    }
+
+    private Cursor() {
+    }
+
+    public static String encode(Object... parts) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                builder.append(SEPARATOR);
+            }
+            Object part = parts[i];
+            builder.append(part instanceof Date date ? date.getTime() : part);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param cursor cursor recibido del cliente
+     * @param expectedParts número de campos que debe contener
+     * @throws RuntimeException si el cursor no es válido
+     */
+    public static String[] decode(String cursor, int expectedParts) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            // El último campo puede ser texto libre y contener el separador
+            String[] parts = decoded.split("\\|", expectedParts);
+            if (parts.length != expectedParts) {
+                throw new IllegalArgumentException();
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Cursor inválido");
+        }
+    }
+
+    public static Date decodeDate(String part) {
+        try {
+            return new Date(Long.parseLong(part));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Cursor inválido");
+        }
+    }
+
+    public static long decodeLong(String part) {
+        try {
+            return Long.parseLong(part);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Cursor inválido");
+        }
+    }
+
+    /**
+     * Último id visto según el cursor de un listado ordenado por id (0 en la primera página)
+     */
+    public static long afterId(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0;
+        }
+        return decodeLong(decode(cursor, 1)[0]);
+    }
+
+    /**
+     * Última posición (fecha, id) vista según el cursor (inicio del rango en la primera página)
+     */
+    public static FechaId afterFechaId(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return new FechaId(FECHA_MIN, 0);
+        }
+        String[] parts = decode(cursor, 2);
+        return new FechaId(decodeDate(parts[0]), decodeLong(parts[1]));
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.ProyectoWeb.pagination;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Página de resultados con el cursor opaco de la siguiente página (null si es la última).
+ */
+public record CursorPage<T>(List<T> items, String nextCursor) {
+
+    /**
+     * Construye la página a partir de una consulta que pidió limite + 1 filas:
+     * si llegó la fila extra, hay página siguiente y el cursor apunta al último elemento devuelto.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int limite, Function<T, String> cursorOf) {
+        if (rows.size() <= limite) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limite);
+        return new CursorPage<>(items, cursorOf.apply(items.get(limite - 1)));
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.ProyectoWeb.pagination;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Tamaño de página de los listados y forma común de la respuesta: el cuerpo sigue
+ * siendo la lista de elementos y el cursor de la página siguiente va en la cabecera X-Next-Cursor.
+ */
+@Component
+public class Paginacion {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private final int tamanoPorDefecto;
+    private final int tamanoMaximo;
+
+    public Paginacion(@Value("${paginacion.tamano-por-defecto:50}") int tamanoPorDefecto,
+                      @Value("${paginacion.tamano-maximo:200}") int tamanoMaximo) {
+        this.tamanoPorDefecto = tamanoPorDefecto;
+        this.tamanoMaximo = tamanoMaximo;
+    }
+
+    /**
+     * Normaliza el tamaño pedido por el cliente al rango [1, tamanoMaximo]
+     */
+    public int limite(Integer solicitado) {
+        if (solicitado == null || solicitado < 1) {
+            return tamanoPorDefecto;
+        }
+        return Math.min(solicitado, tamanoMaximo);
+    }
+
+    public static <T> ResponseEntity<List<T>> respuesta(CursorPage<T> page) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            builder.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return builder.body(page.items());
+    }
+}
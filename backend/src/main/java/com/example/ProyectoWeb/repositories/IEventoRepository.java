@@ -1,36 +1,164 @@
 package com.example.ProyectoWeb.repositories;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.ProyectoWeb.entity.Evento;
+import com.example.ProyectoWeb.entity.EventoActivoFila;
+import com.example.ProyectoWeb.entity.EventoResumenFila;
+import com.example.ProyectoWeb.entity.ParticipanteInfo;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 
 public interface IEventoRepository extends JpaRepository<Evento, Long> {
 
     @Query(value = "SELECT e.* FROM evento e JOIN evento_usuario eu ON e.id = eu.evento_id WHERE eu.usuario_id = :userId", nativeQuery = true)
     List<Evento> getEventosByUsuario(@Param("userId") Long id);
 
-    @Query(value = "SELECT * FROM evento WHERE fecha > NOW() ORDER BY fecha ASC", nativeQuery = true)
-    List<Evento> findEventosActivos();
+    // Keyset sobre (fecha, id) a partir del join indexado por usuario_id; pide limite + 1 filas
+    @Query(value = "SELECT e.* FROM evento e JOIN evento_usuario eu ON e.id = eu.evento_id " +
+            "WHERE eu.usuario_id = :userId AND e.fecha > :desde AND e.fecha <= :hasta " +
+            "AND (e.fecha, e.id) > (:cursorFecha, :cursorId) " +
+            "ORDER BY e.fecha ASC, e.id ASC LIMIT :limite", nativeQuery = true)
+    List<Evento> findEventosByUsuarioKeyset(@Param("userId") Long userId,
+                                            @Param("desde") Date desde,
+                                            @Param("hasta") Date hasta,
+                                            @Param("cursorFecha") Date cursorFecha,
+                                            @Param("cursorId") Long cursorId,
+                                            @Param("limite") int limite);
 
-    @Query(value = "SELECT * FROM evento WHERE fecha > NOW() ORDER BY fecha ASC LIMIT 3", nativeQuery = true)
-    List<Evento> findEventosActivos3();
+    // Columnas de los listados: participantes desde el contador del evento e invitados por
+    // subconsulta sobre el índice de invitado_externo, sin cargar colecciones
+    String RESUMEN_COLUMNAS = "e.id AS \"id\", e.nombre AS \"nombre\", e.tipo AS \"tipo\", e.fecha AS \"fecha\", " +
+            "e.empresa AS \"empresa\", e.descripcion AS \"descripcion\", e.capacidad AS \"capacidad\", " +
+            "e.cantidad_participantes AS \"cantidadParticipantes\", " +
+            "(SELECT COUNT(*) FROM invitado_externo ie WHERE ie.evento_id = e.id) AS \"cantidadInvitadosExternos\" ";
 
-    @Query(value = "SELECT * FROM evento WHERE fecha > NOW() ORDER BY fecha ASC LIMIT 1", nativeQuery = true)
-    Evento findEventoMasProximo();
+    // Las consultas de activos filtran NOT archivado además de la fecha para usar el índice parcial
+    // idx_evento_actual, que solo contiene eventos sin archivar y no crece con el histórico.
+    // Todos los eventos activos en una sola pasada, para la foto en memoria de EventosActivosSnapshot.
+    // El número de eventos y la suma de participantes salen de funciones de ventana sobre la misma CTE
+    @Query(value = "WITH activos AS (SELECT " + RESUMEN_COLUMNAS + "FROM evento e WHERE NOT e.archivado AND e.fecha > NOW()) " +
+            "SELECT a.*, COUNT(*) OVER () AS \"totalEventos\", " +
+            "SUM(a.\"cantidadParticipantes\") OVER () AS \"totalParticipantes\" " +
+            "FROM activos a ORDER BY a.\"fecha\" ASC, a.\"id\" ASC", nativeQuery = true)
+    List<EventoActivoFila> findResumenActivos();
 
-    @Query(value = "SELECT e.id, e.nombre, COUNT(eu.usuario_id) AS cantidad_participantes " +
-            "FROM evento e " +
-            "LEFT JOIN evento_usuario eu ON e.id = eu.evento_id " +
-            "WHERE e.fecha > NOW() " +
-            "GROUP BY e.id, e.nombre", nativeQuery = true)
-    List<Object[]> findCantidadParticipantesEventosActivos();
+    @Query(value = "SELECT " + RESUMEN_COLUMNAS + "FROM evento e " +
+            "WHERE NOT e.archivado AND e.fecha > NOW() AND (e.fecha, e.id) > (:cursorFecha, :cursorId) " +
+            "ORDER BY e.fecha ASC, e.id ASC LIMIT :limite", nativeQuery = true)
+    List<EventoResumenFila> findResumenActivosKeyset(@Param("cursorFecha") Date cursorFecha,
+                                                     @Param("cursorId") Long cursorId,
+                                                     @Param("limite") int limite);
 
-    @Query(value = "SELECT COUNT(eu.usuario_id) FROM evento_usuario eu " +
-            "JOIN evento e ON e.id = eu.evento_id " +
-            "WHERE e.fecha > NOW()", nativeQuery = true)
-    Integer countTotalParticipantesEventosActivos();
-}
\ No newline at end of file
+    // Histórico completo ordenado por id (incluye eventos sin fecha)
+    @Query(value = "SELECT " + RESUMEN_COLUMNAS + "FROM evento e " +
+            "WHERE e.id > :cursorId ORDER BY e.id ASC LIMIT :limite", nativeQuery = true)
+    List<EventoResumenFila> findResumenHistoricoKeyset(@Param("cursorId") Long cursorId,
+                                                       @Param("limite") int limite);
+
+    @Query(value = "SELECT " + RESUMEN_COLUMNAS + "FROM evento e WHERE e.id IN (:ids)", nativeQuery = true)
+    List<EventoResumenFila> findResumenByIds(@Param("ids") Collection<Long> ids);
+
+    // Campos de texto de los eventos para construir el índice de búsqueda: [id, nombre, tipo, fecha, empresa, descripcion]
+    @Query("SELECT e.id, e.nombre, e.tipo, e.fecha, e.empresa, e.descripcion FROM Evento e WHERE e.id > :id ORDER BY e.id")
+    List<Object[]> findTextoKeyset(@Param("id") Long id, Limit limit);
+
+    // Los mismos campos para los eventos indicados (los borrados no aparecen)
+    @Query("SELECT e.id, e.nombre, e.tipo, e.fecha, e.empresa, e.descripcion FROM Evento e WHERE e.id IN (:ids)")
+    List<Object[]> findTextoByIds(@Param("ids") Collection<Long> ids);
+
+    // Usernames de los participantes de una página de eventos en una sola consulta: [evento_id, username]
+    @Query(value = "SELECT eu.evento_id, u.username FROM evento_usuario eu JOIN usuario u ON u.id = eu.usuario_id " +
+            "WHERE eu.evento_id IN (:eventoIds) ORDER BY eu.evento_id, u.username", nativeQuery = true)
+    List<Object[]> findUsernamesParticipantes(@Param("eventoIds") Collection<Long> eventoIds);
+
+    @Query("SELECT e.nombre FROM Evento e WHERE e.id = :eventoId")
+    Optional<String> findNombreById(@Param("eventoId") Long eventoId);
+
+    // Igual, bloqueando la fila del evento hasta el final de la transacción: serializa las
+    // altas y bajas del mismo evento entre la comprobación de plazas y la de lista de espera
+    @Query(value = "SELECT nombre FROM evento WHERE id = :eventoId FOR UPDATE", nativeQuery = true)
+    Optional<String> findNombreByIdParaActualizar(@Param("eventoId") Long eventoId);
+
+    // Inscripción directa sobre evento_usuario; devuelve 0 si la clave primaria ya existía
+    @Modifying
+    @Query(value = "INSERT INTO evento_usuario (evento_id, usuario_id) VALUES (:eventoId, :usuarioId) " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertParticipante(@Param("eventoId") Long eventoId, @Param("usuarioId") Long usuarioId);
+
+    @Modifying
+    @Query(value = "DELETE FROM evento_usuario WHERE evento_id = :eventoId AND usuario_id = :usuarioId", nativeQuery = true)
+    int deleteParticipante(@Param("eventoId") Long eventoId, @Param("usuarioId") Long usuarioId);
+
+    // Datos públicos de los participantes, sin cargar entidades Usuario (ni sus contraseñas)
+    @Query(value = "SELECT u.id AS id, u.username AS username, u.nombre AS nombre, u.apellido AS apellido " +
+            "FROM evento_usuario eu JOIN usuario u ON u.id = eu.usuario_id " +
+            "WHERE eu.evento_id = :eventoId AND u.id > :cursorId ORDER BY u.id LIMIT :limite", nativeQuery = true)
+    List<ParticipanteInfo> findParticipantesKeyset(@Param("eventoId") Long eventoId,
+                                                   @Param("cursorId") Long cursorId,
+                                                   @Param("limite") int limite);
+
+    // Igual que findParticipantesKeyset pero ordenado por nombre completo; el keyset es (nombre completo, id)
+    @Query(value = "SELECT u.id AS id, u.username AS username, u.nombre AS nombre, u.apellido AS apellido " +
+            "FROM evento_usuario eu JOIN usuario u ON u.id = eu.usuario_id " +
+            "WHERE eu.evento_id = :eventoId " +
+            "AND (COALESCE(u.nombre, '') || ' ' || COALESCE(u.apellido, ''), u.id) > (:cursorNombre, :cursorId) " +
+            "ORDER BY COALESCE(u.nombre, '') || ' ' || COALESCE(u.apellido, ''), u.id LIMIT :limite", nativeQuery = true)
+    List<ParticipanteInfo> findParticipantesPorNombreKeyset(@Param("eventoId") Long eventoId,
+                                                            @Param("cursorNombre") String cursorNombre,
+                                                            @Param("cursorId") Long cursorId,
+                                                            @Param("limite") int limite);
+
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM evento_usuario WHERE evento_id = :eventoId AND usuario_id = :usuarioId)",
+            nativeQuery = true)
+    boolean existsParticipante(@Param("eventoId") Long eventoId, @Param("usuarioId") Long usuarioId);
+
+    // Ocupa una plaza si queda alguna; solo bloquea la fila de este evento
+    @Modifying
+    @Query(value = "UPDATE evento SET cantidad_participantes = cantidad_participantes + 1 " +
+            "WHERE id = :eventoId AND (capacidad IS NULL OR cantidad_participantes < capacidad)", nativeQuery = true)
+    int reservarPlaza(@Param("eventoId") Long eventoId);
+
+    @Modifying
+    @Query(value = "UPDATE evento SET cantidad_participantes = cantidad_participantes - 1 " +
+            "WHERE id = :eventoId AND cantidad_participantes > 0", nativeQuery = true)
+    int liberarPlaza(@Param("eventoId") Long eventoId);
+
+    // Bloquea el evento antes de modificarlo: mientras dura la transacción no cambia su número de participantes
+    @Query(value = "SELECT * FROM evento WHERE id = :eventoId FOR UPDATE", nativeQuery = true)
+    Optional<Evento> findByIdParaActualizar(@Param("eventoId") Long eventoId);
+
+    // Marca como archivado un lote de eventos ya celebrados; devuelve cuántos ha marcado
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE evento SET archivado = TRUE WHERE id IN (" +
+            "SELECT id FROM evento WHERE NOT archivado AND fecha <= NOW() ORDER BY id LIMIT :limite)", nativeQuery = true)
+    int archivarTerminados(@Param("limite") int limite);
+
+    // Recalcula la marca de un evento cuya fecha ha cambiado (p. ej. un evento pasado movido al futuro)
+    @Modifying
+    @Query(value = "UPDATE evento SET archivado = (fecha IS NOT NULL AND fecha <= NOW()) WHERE id = :eventoId", nativeQuery = true)
+    int actualizarArchivado(@Param("eventoId") Long eventoId);
+
+    // Reconciliación del contador: bloquea un lote de eventos para que no haya inscripciones a medias
+    // mientras se cuentan sus participantes
+    @Query(value = "SELECT id FROM evento WHERE id > :desdeId ORDER BY id LIMIT :limite FOR UPDATE", nativeQuery = true)
+    List<Long> bloquearLote(@Param("desdeId") Long desdeId, @Param("limite") int limite);
+
+    @Query(value = "SELECT e.id FROM evento e WHERE e.id IN (:ids) AND e.cantidad_participantes <> " +
+            "(SELECT COUNT(*) FROM evento_usuario eu WHERE eu.evento_id = e.id)", nativeQuery = true)
+    List<Long> findContadorDesajustado(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "UPDATE evento e SET cantidad_participantes = " +
+            "(SELECT COUNT(*) FROM evento_usuario eu WHERE eu.evento_id = e.id) WHERE e.id IN (:ids)", nativeQuery = true)
+    int corregirContador(@Param("ids") Collection<Long> ids);
+}
@@ -1,6 +1,7 @@
 package com.example.ProyectoWeb.repositories;
 
 import com.example.ProyectoWeb.entity.Hito;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -22,6 +23,9 @@ public interface IHitoRepository extends JpaRepository<Hito, Long> {
     @Query("SELECT h FROM Hito h WHERE h.eventoRelacionado.id = :eventoId")
     List<Hito> findByEventoId(@Param("eventoId") Long eventoId);
 
+    // Listado paginado por id (keyset)
+    List<Hito> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
     // Agregar este nuevo método para buscar por beneficiario id
     List<Hito> findByBeneficiarioId(Long beneficiarioId);
 
@@ -0,0 +1,36 @@
+package com.example.ProyectoWeb.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.ProyectoWeb.entity.EsperaEvento;
+
+import java.util.List;
+
+public interface IListaEsperaRepository extends JpaRepository<EsperaEvento, Long> {
+
+    // Devuelve 0 si el usuario ya estaba en la lista de espera
+    @Modifying
+    @Query(value = "INSERT INTO lista_espera (evento_id, usuario_id, fecha_solicitud) VALUES (:eventoId, :usuarioId, NOW()) " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertEspera(@Param("eventoId") Long eventoId, @Param("usuarioId") Long usuarioId);
+
+    // Primer usuario en espera (id, usuario_id); SKIP LOCKED evita que dos promociones concurrentes elijan al mismo
+    @Query(value = "SELECT id, usuario_id FROM lista_espera WHERE evento_id = :eventoId " +
+            "ORDER BY id LIMIT 1 FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Object[]> findPrimeroEnEspera(@Param("eventoId") Long eventoId);
+
+    @Modifying
+    @Query(value = "DELETE FROM lista_espera WHERE id = :id", nativeQuery = true)
+    int deleteEsperaById(@Param("id") Long id);
+
+    @Modifying
+    @Query(value = "DELETE FROM lista_espera WHERE evento_id = :eventoId AND usuario_id = :usuarioId", nativeQuery = true)
+    int deleteEspera(@Param("eventoId") Long eventoId, @Param("usuarioId") Long usuarioId);
+
+    @Query(value = "SELECT COUNT(*) FROM lista_espera WHERE evento_id = :eventoId AND id <= " +
+            "(SELECT id FROM lista_espera WHERE evento_id = :eventoId AND usuario_id = :usuarioId)", nativeQuery = true)
+    long findPosicion(@Param("eventoId") Long eventoId, @Param("usuarioId") Long usuarioId);
+}
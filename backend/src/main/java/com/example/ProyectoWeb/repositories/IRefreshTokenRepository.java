@@ -0,0 +1,30 @@
+package com.example.ProyectoWeb.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.ProyectoWeb.entity.RefreshToken;
+
+import java.util.Date;
+import java.util.Optional;
+
+public interface IRefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    @Query("SELECT r FROM RefreshToken r JOIN FETCH r.usuario WHERE r.tokenHash = :tokenHash")
+    Optional<RefreshToken> findByTokenHashConUsuario(@Param("tokenHash") String tokenHash);
+
+    // Marca el token como usado solo si nadie lo ha usado antes (devuelve 0 si ya estaba usado)
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.usado = true WHERE r.id = :id AND r.usado = false")
+    int marcarUsado(@Param("id") Long id);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.familia = :familia")
+    int deleteByFamilia(@Param("familia") String familia);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.expiraEn < :ahora")
+    int deleteExpirados(@Param("ahora") Date ahora);
+}
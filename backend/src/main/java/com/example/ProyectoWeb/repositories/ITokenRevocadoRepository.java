@@ -0,0 +1,23 @@
+package com.example.ProyectoWeb.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.ProyectoWeb.entity.TokenRevocado;
+
+import java.util.Date;
+import java.util.List;
+
+public interface ITokenRevocadoRepository extends JpaRepository<TokenRevocado, String> {
+
+    @Query("SELECT t.jti FROM TokenRevocado t WHERE t.expiraEn > :ahora")
+    List<String> findJtisVigentes(@Param("ahora") Date ahora);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM TokenRevocado t WHERE t.expiraEn < :ahora")
+    int deleteExpirados(@Param("ahora") Date ahora);
+}
@@ -0,0 +1,23 @@
+package com.example.ProyectoWeb.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.ProyectoWeb.entity.UsuarioEliminado;
+
+import java.util.Date;
+import java.util.List;
+
+public interface IUsuarioEliminadoRepository extends JpaRepository<UsuarioEliminado, Long> {
+
+    @Query("SELECT u.usuarioId FROM UsuarioEliminado u WHERE u.expiraEn > :ahora")
+    List<Long> findIdsVigentes(@Param("ahora") Date ahora);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM UsuarioEliminado u WHERE u.expiraEn < :ahora")
+    int deleteExpirados(@Param("ahora") Date ahora);
+}
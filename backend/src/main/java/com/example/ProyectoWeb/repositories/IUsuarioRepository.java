@@ -1,13 +1,44 @@
 package com.example.ProyectoWeb.repositories;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.ProyectoWeb.entity.Usuario;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface IUsuarioRepository extends JpaRepository<Usuario, Long> {
 
     Optional<Usuario> findByUsername(String username);
+
+    // Listado paginado por id (keyset) excluyendo a un usuario
+    List<Usuario> findByIdGreaterThanAndUsernameNotOrderByIdAsc(Long id, String username, Limit limit);
+
+    @Query("SELECT u.id FROM Usuario u WHERE u.username = :username")
+    Optional<Long> findIdByUsername(@Param("username") String username);
+
+    // Solo los usuarios cuyos tokens se han invalidado alguna vez (id, tokenVersion)
+    @Query("SELECT u.id, u.tokenVersion FROM Usuario u WHERE u.tokenVersion > 0")
+    List<Object[]> findTokenVersionsModificadas();
+
+    @Query("SELECT u.id, u.tokenVersion FROM Usuario u WHERE u.id IN :ids")
+    List<Object[]> findTokenVersionsByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT u.username FROM Usuario u WHERE u.username IN :usernames")
+    List<String> findUsernamesExistentes(@Param("usernames") Collection<String> usernames);
+
+    @Query("SELECT u.correo FROM Usuario u WHERE u.correo IN :correos")
+    List<String> findCorreosExistentes(@Param("correos") Collection<String> correos);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Usuario u SET u.password = :password WHERE u.username = :username")
+    int updatePassword(@Param("username") String username, @Param("password") String password);
 }
 
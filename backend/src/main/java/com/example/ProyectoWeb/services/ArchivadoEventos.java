@@ -0,0 +1,54 @@
+package com.example.ProyectoWeb.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.ProyectoWeb.repositories.IEventoRepository;
+
+/**
+ * Saca los eventos ya celebrados de la parte "actual" de la tabla evento.
+ *
+ * Los eventos terminados se marcan como archivados por lotes, cada uno en su propia
+ * transacción para no bloquear muchas filas a la vez. Las consultas de eventos activos
+ * recorren el índice parcial idx_evento_actual, que solo contiene eventos sin archivar, así
+ * que su coste no crece con el histórico. El histórico, los hitos y las exportaciones no
+ * filtran por la marca y siguen viendo todos los eventos.
+ *
+ * Cada ejecución procesa como mucho archivado.max-lotes lotes; si queda más (por ejemplo, el
+ * primer archivado de un histórico grande) sigue en la siguiente, para no ocupar durante
+ * mucho tiempo un hilo del planificador compartido con los demás trabajos periódicos.
+ */
+@Slf4j
+@Component
+public class ArchivadoEventos {
+
+    private final IEventoRepository eventoRepository;
+    private final int tamanoLote;
+    private final int maxLotes;
+
+    public ArchivadoEventos(IEventoRepository eventoRepository,
+                            @Value("${archivado.tamano-lote:1000}") int tamanoLote,
+                            @Value("${archivado.max-lotes:20}") int maxLotes) {
+        this.eventoRepository = eventoRepository;
+        this.tamanoLote = tamanoLote;
+        this.maxLotes = maxLotes;
+    }
+
+    @Scheduled(initialDelayString = "${archivado.intervalo-ms:3600000}", fixedDelayString = "${archivado.intervalo-ms:3600000}")
+    public void archivar() {
+        int total = 0;
+        int lotes = 0;
+        int archivados;
+        do {
+            archivados = eventoRepository.archivarTerminados(tamanoLote);
+            total += archivados;
+        } while (archivados == tamanoLote && ++lotes < maxLotes);
+        if (archivados == tamanoLote) {
+            log.info("Eventos archivados: {} (quedan más; se siguen en la próxima ejecución)", total);
+        } else if (total > 0) {
+            log.info("Eventos archivados: {}", total);
+        }
+    }
+}
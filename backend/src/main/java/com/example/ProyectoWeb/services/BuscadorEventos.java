@@ -0,0 +1,314 @@
+package com.example.ProyectoWeb.services;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.ProyectoWeb.config.AfterCommit;
+import com.example.ProyectoWeb.config.VersionStamps;
+import com.example.ProyectoWeb.entity.Evento;
+import com.example.ProyectoWeb.entity.TipoEvento;
+import com.example.ProyectoWeb.repositories.IEventoRepository;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido en memoria sobre nombre, empresa y descripción de los eventos.
+ *
+ * Los términos se normalizan sin acentos ni mayúsculas, así que "Charla" encuentra
+ * "charlá" y viceversa. Cada término guarda, por evento, un peso según el campo donde
+ * aparece (nombre 3, empresa 2, descripción 1); la puntuación de un evento es la suma
+ * de peso × idf de los términos buscados, y todos deben aparecer. El último término
+ * también casa como prefijo para permitir búsqueda mientras se escribe.
+ *
+ * EventoService lo mantiene al día tras cada alta, modificación o baja confirmada. Los
+ * cambios de otros nodos se reindexan al verlos en VersionStamps, antes de que cambie el
+ * sello de eventos con el que se construyen el ETag y el cursor de /eventos/buscar. La
+ * reconstrucción periódica completa solo corrige lo que se haya podido perder.
+ */
+@Component
+public class BuscadorEventos {
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final float PESO_NOMBRE = 3f;
+    private static final float PESO_EMPRESA = 2f;
+    private static final float PESO_DESCRIPCION = 1f;
+    private static final double FACTOR_PREFIJO = 0.5;
+    private static final int MAX_EXPANSIONES_PREFIJO = 64;
+    private static final int TAMANO_LOTE = 1000;
+
+    public record Resultado(long id, double puntuacion) {
+    }
+
+    private record Documento(long id, TipoEvento tipo, Date fecha, Map<String, Float> pesos) {
+    }
+
+    private static final class Indice {
+        final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+        final Map<Long, Documento> documentos = new HashMap<>();
+
+        void put(Documento documento) {
+            remove(documento.id());
+            documentos.put(documento.id(), documento);
+            documento.pesos().forEach((termino, peso) ->
+                    postings.computeIfAbsent(termino, t -> new HashMap<>()).put(documento.id(), peso));
+        }
+
+        void remove(long id) {
+            Documento anterior = documentos.remove(id);
+            if (anterior == null) {
+                return;
+            }
+            for (String termino : anterior.pesos().keySet()) {
+                Map<Long, Float> eventos = postings.get(termino);
+                if (eventos != null) {
+                    eventos.remove(id);
+                    if (eventos.isEmpty()) {
+                        postings.remove(termino);
+                    }
+                }
+            }
+        }
+    }
+
+    private final IEventoRepository eventoRepository;
+    private final VersionStamps versionStamps;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Indice indice = new Indice();
+    // Cambios recibidos mientras se reconstruye el índice, para aplicarlos también al nuevo
+    private List<Consumer<Indice>> pendientesDuranteReconstruccion;
+
+    public BuscadorEventos(IEventoRepository eventoRepository, VersionStamps versionStamps) {
+        this.eventoRepository = eventoRepository;
+        this.versionStamps = versionStamps;
+    }
+
+    @PostConstruct
+    void init() {
+        reconstruir();
+        versionStamps.alCambiar(this::sincronizar);
+    }
+
+    /**
+     * Indexa (o reindexa) el evento cuando se confirme la transacción en curso
+     */
+    public void indexar(Evento evento) {
+        Documento documento = documento(evento.getId(), evento.getNombre(), evento.getTipo(),
+                evento.getFecha(), evento.getEmpresa(), evento.getDescripcion());
+        AfterCommit.run(() -> aplicar(indice -> indice.put(documento)));
+    }
+
+    public void eliminar(Long eventoId) {
+        AfterCommit.run(() -> aplicar(indice -> indice.remove(eventoId)));
+    }
+
+    /**
+     * Reindexa los eventos cuyos sellos ("evento:N") han subido otros nodos
+     */
+    void sincronizar(Set<String> claves) {
+        List<Long> ids = new ArrayList<>();
+        for (String clave : claves) {
+            Long id = VersionStamps.eventoId(clave);
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        for (int i = 0; i < ids.size(); i += TAMANO_LOTE) {
+            List<Long> lote = ids.subList(i, Math.min(ids.size(), i + TAMANO_LOTE));
+            List<Documento> documentos = new ArrayList<>(lote.size());
+            for (Object[] fila : eventoRepository.findTextoByIds(lote)) {
+                documentos.add(documento(fila));
+            }
+            // Los que no vuelven de la base de datos se han borrado
+            Set<Long> borrados = new HashSet<>(lote);
+            documentos.forEach(documento -> borrados.remove(documento.id()));
+            aplicar(indice -> {
+                documentos.forEach(indice::put);
+                borrados.forEach(indice::remove);
+            });
+        }
+    }
+
+    private void aplicar(Consumer<Indice> cambio) {
+        lock.writeLock().lock();
+        try {
+            cambio.accept(indice);
+            if (pendientesDuranteReconstruccion != null) {
+                pendientesDuranteReconstruccion.add(cambio);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Eventos que contienen todos los términos del texto, ordenados por puntuación
+     * descendente y, a igualdad, por id
+     * @param tipo filtro opcional por tipo de evento
+     * @param desde fecha mínima (inclusive), opcional
+     * @param hasta fecha máxima (inclusive), opcional
+     */
+    public List<Resultado> buscar(String texto, TipoEvento tipo, Date desde, Date hasta) {
+        List<String> terminos = terminos(texto);
+        if (terminos.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int total = Math.max(1, indice.documentos.size());
+            Map<Long, Double> acumulado = null;
+            for (int i = 0; i < terminos.size(); i++) {
+                boolean ultimo = i == terminos.size() - 1;
+                Map<Long, Double> puntuaciones = puntuar(terminos.get(i), ultimo, total);
+                if (acumulado == null) {
+                    acumulado = new HashMap<>();
+                    for (Map.Entry<Long, Double> entrada : puntuaciones.entrySet()) {
+                        if (cumpleFiltros(indice.documentos.get(entrada.getKey()), tipo, desde, hasta)) {
+                            acumulado.put(entrada.getKey(), entrada.getValue());
+                        }
+                    }
+                } else {
+                    acumulado.keySet().retainAll(puntuaciones.keySet());
+                    acumulado.replaceAll((id, puntuacion) -> puntuacion + puntuaciones.get(id));
+                }
+                if (acumulado.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            List<Resultado> resultados = new ArrayList<>(acumulado.size());
+            acumulado.forEach((id, puntuacion) -> resultados.add(new Resultado(id, puntuacion)));
+            resultados.sort(Comparator.comparingDouble(Resultado::puntuacion).reversed()
+                    .thenComparingLong(Resultado::id));
+            return resultados;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Puntuación de cada evento para un término: coincidencia exacta o, si es el último, por prefijo
+    private Map<Long, Double> puntuar(String termino, boolean prefijo, int total) {
+        Map<Long, Double> puntuaciones = new HashMap<>();
+        sumarPostings(puntuaciones, indice.postings.get(termino), total, 1.0);
+        if (prefijo && termino.length() >= 2) {
+            int expansiones = 0;
+            for (Map.Entry<String, Map<Long, Float>> entrada
+                    : indice.postings.subMap(termino, false, termino + Character.MAX_VALUE, false).entrySet()) {
+                if (++expansiones > MAX_EXPANSIONES_PREFIJO) {
+                    break;
+                }
+                sumarPostings(puntuaciones, entrada.getValue(), total, FACTOR_PREFIJO);
+            }
+        }
+        return puntuaciones;
+    }
+
+    private static void sumarPostings(Map<Long, Double> puntuaciones, Map<Long, Float> postings, int total, double factor) {
+        if (postings == null) {
+            return;
+        }
+        double idf = Math.log(1 + (double) total / postings.size());
+        // Un evento que casa con varias expansiones del prefijo se queda con la mejor
+        postings.forEach((id, peso) -> puntuaciones.merge(id, peso * idf * factor, Math::max));
+    }
+
+    private static boolean cumpleFiltros(Documento documento, TipoEvento tipo, Date desde, Date hasta) {
+        if (documento == null) {
+            return false;
+        }
+        if (tipo != null && tipo != documento.tipo()) {
+            return false;
+        }
+        if (desde != null && (documento.fecha() == null || documento.fecha().before(desde))) {
+            return false;
+        }
+        return hasta == null || (documento.fecha() != null && !documento.fecha().after(hasta));
+    }
+
+    /**
+     * Reconstruye el índice completo desde la base de datos, por lotes ordenados por id
+     */
+    @Scheduled(initialDelayString = "${busqueda.rebuild-ms:600000}", fixedDelayString = "${busqueda.rebuild-ms:600000}")
+    public synchronized void reconstruir() {
+        lock.writeLock().lock();
+        try {
+            pendientesDuranteReconstruccion = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Indice nuevo = new Indice();
+        long desdeId = 0;
+        List<Object[]> lote;
+        do {
+            lote = eventoRepository.findTextoKeyset(desdeId, Limit.of(TAMANO_LOTE));
+            for (Object[] fila : lote) {
+                nuevo.put(documento(fila));
+                desdeId = (Long) fila[0];
+            }
+        } while (lote.size() == TAMANO_LOTE);
+
+        lock.writeLock().lock();
+        try {
+            pendientesDuranteReconstruccion.forEach(cambio -> cambio.accept(nuevo));
+            pendientesDuranteReconstruccion = null;
+            indice = nuevo;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Fila de findTextoKeyset / findTextoByIds
+    private static Documento documento(Object[] fila) {
+        return documento((Long) fila[0], (String) fila[1], (TipoEvento) fila[2],
+                (Date) fila[3], (String) fila[4], (String) fila[5]);
+    }
+
+    private static Documento documento(Long id, String nombre, TipoEvento tipo, Date fecha, String empresa, String descripcion) {
+        Map<String, Float> pesos = new HashMap<>();
+        sumarTerminos(pesos, nombre, PESO_NOMBRE);
+        sumarTerminos(pesos, empresa, PESO_EMPRESA);
+        sumarTerminos(pesos, descripcion, PESO_DESCRIPCION);
+        return new Documento(id, tipo, fecha, pesos);
+    }
+
+    private static void sumarTerminos(Map<String, Float> pesos, String texto, float peso) {
+        for (String termino : terminos(texto)) {
+            pesos.merge(termino, peso, Float::sum);
+        }
+    }
+
+    // Minúsculas, sin acentos ni signos: "Hackatón IA-2024" -> [hackaton, ia, 2024]
+    static List<String> terminos(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+        String normalizado = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> terminos = new ArrayList<>();
+        for (String termino : SEPARADORES.split(normalizado)) {
+            if (!termino.isEmpty()) {
+                terminos.add(termino);
+            }
+        }
+        return terminos;
+    }
+}
@@ -5,11 +5,25 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.example.ProyectoWeb.config.SingleFlight;
+import com.example.ProyectoWeb.config.VersionStamps;
 import com.example.ProyectoWeb.entity.Evento;
-import com.example.ProyectoWeb.entity.Usuario;
+import com.example.ProyectoWeb.entity.EventoResumen;
+import com.example.ProyectoWeb.entity.EventoResumenFila;
+import com.example.ProyectoWeb.entity.EventosDashboard;
+import com.example.ProyectoWeb.entity.ParticipanteInfo;
+import com.example.ProyectoWeb.entity.TipoEvento;
+import com.example.ProyectoWeb.pagination.Cursor;
+import com.example.ProyectoWeb.pagination.CursorPage;
 import com.example.ProyectoWeb.repositories.IEventoRepository;
+import com.example.ProyectoWeb.repositories.IListaEsperaRepository;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
@@ -18,9 +32,24 @@ public class EventoService {
     @Autowired
     private final IEventoRepository eventoRepository;
     private final UsuarioService usuarioService;
+    private final IListaEsperaRepository listaEsperaRepository;
+    private final EventosActivosSnapshot eventosActivos;
+    private final VersionStamps versionStamps;
+    private final SingleFlight singleFlight;
+    private final BuscadorEventos buscador;
 
     public Evento saveEvento(Evento evento){
-        return eventoRepository.save(evento);
+        Evento guardado = eventoRepository.save(evento);
+        // El índice se actualiza antes de subir el sello de eventos del que depende /buscar
+        buscador.indexar(guardado);
+        registrarCambio(guardado.getId());
+        return guardado;
+    }
+
+    // Toda escritura sobre un evento descarta la foto de activos e invalida los ETag de eventos
+    private void registrarCambio(Long eventoId) {
+        eventosActivos.invalidar();
+        versionStamps.bump(VersionStamps.EVENTOS, VersionStamps.evento(eventoId));
     }
 
     public Evento getEventoById(Long eventoId){
@@ -28,76 +57,380 @@ public class EventoService {
                 .orElseThrow(() -> new RuntimeException("Evento no encontrado"));
     }
 
+    /**
+     * Detalle de un evento para serializarlo. Las peticiones simultáneas del mismo evento
+     * comparten una sola carga; por eso las colecciones se inicializan aquí, antes de
+     * entregar la entidad a otros hilos.
+     */
+    public Evento getEventoDetalle(Long eventoId) {
+        return singleFlight.execute("evento.detalle", eventoId, () -> {
+            Evento evento = getEventoById(eventoId);
+            evento.getParticipantes();
+            evento.getInvitadosExternos();
+            return evento;
+        });
+    }
+
     public List<Evento> getAllEventos(){
         return eventoRepository.findAll();
     }
 
-    public List<Evento> getEventosActivos() {
-        return eventoRepository.findEventosActivos();
+    /**
+     * Eventos en los que participa el usuario, ordenados por fecha y paginados por cursor
+     * @param usuarioId ID del usuario
+     * @param periodo "proximos", "pasados" o null para todos
+     * @param cursor Cursor de la página anterior, o null para la primera
+     * @param limite Tamaño de página
+     */
+    public CursorPage<Evento> getEventosDeUsuario(Long usuarioId, String periodo, String cursor, int limite) {
+        Date ahora = new Date();
+        Date desde = "proximos".equalsIgnoreCase(periodo) ? ahora : Cursor.FECHA_MIN;
+        Date hasta = "pasados".equalsIgnoreCase(periodo) ? ahora : Cursor.FECHA_MAX;
+
+        Cursor.FechaId desdeCursor = Cursor.afterFechaId(cursor);
+        List<Evento> filas = eventoRepository.findEventosByUsuarioKeyset(
+                usuarioId, desde, hasta, desdeCursor.fecha(), desdeCursor.id(), limite + 1);
+        return CursorPage.of(filas, limite, evento -> Cursor.encode(evento.getFecha(), evento.getId()));
+    }
+
+    /**
+     * Todos los eventos, incluidos los pasados, paginados por id
+     * @param conParticipantes si se incluyen los usernames de los participantes
+     */
+    public CursorPage<EventoResumen> getEventosHistorico(String cursor, int limite, boolean conParticipantes) {
+        long desdeId = Cursor.afterId(cursor);
+        return singleFlight.execute("eventos.historico", desdeId + ":" + limite + ":" + conParticipantes, () -> {
+            List<EventoResumen> filas = resumenes(
+                    eventoRepository.findResumenHistoricoKeyset(desdeId, limite + 1), conParticipantes);
+            return CursorPage.of(filas, limite, evento -> Cursor.encode(evento.getId()));
+        });
+    }
+
+    /**
+     * Eventos activos ordenados por fecha y paginados por cursor. Sin usernames se sirven
+     * desde la foto en memoria; con ellos, desde la base de datos.
+     * @param conParticipantes si se incluyen los usernames de los participantes
+     */
+    public CursorPage<EventoResumen> getEventosActivos(String cursor, int limite, boolean conParticipantes) {
+        Cursor.FechaId desdeCursor = Cursor.afterFechaId(cursor);
+        List<EventoResumen> filas;
+        if (conParticipantes) {
+            String clave = desdeCursor.fecha().getTime() + ":" + desdeCursor.id() + ":" + limite;
+            filas = singleFlight.execute("eventos.activos", clave, () -> resumenes(eventoRepository.findResumenActivosKeyset(
+                    desdeCursor.fecha(), desdeCursor.id(), limite + 1), true));
+        } else {
+            filas = activosDesde(desdeCursor, limite + 1);
+        }
+        return CursorPage.of(filas, limite, evento -> Cursor.encode(evento.getFecha(), evento.getId()));
+    }
+
+    public List<EventoResumen> getEventosActivos3(boolean conParticipantes) {
+        if (conParticipantes) {
+            return resumenes(eventoRepository.findResumenActivosKeyset(Cursor.FECHA_MIN, 0L, 3), true);
+        }
+        return activosDesde(new Cursor.FechaId(Cursor.FECHA_MIN, 0), 3);
+    }
+
+    // Hasta "cuantos" eventos de la foto posteriores a la posición (fecha, id) dada
+    private List<EventoResumen> activosDesde(Cursor.FechaId posicion, int cuantos) {
+        List<EventoResumen> eventos = eventosActivos.get().eventos();
+        int bajo = 0;
+        int alto = eventos.size();
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            EventoResumen evento = eventos.get(medio);
+            int comparacion = evento.getFecha().compareTo(posicion.fecha());
+            if (comparacion < 0 || (comparacion == 0 && evento.getId() <= posicion.id())) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return eventos.subList(bajo, Math.min(eventos.size(), bajo + cuantos));
     }
 
-    
-    public List<Evento> getEventosActivos3() {
-        return eventoRepository.findEventosActivos3();
+    /**
+     * Convierte una página de filas en resúmenes. Los usernames, si se piden, se cargan
+     * con una única consulta para toda la página, así que el listado cuesta como mucho
+     * dos sentencias sea cual sea el tamaño de página.
+     */
+    private List<EventoResumen> resumenes(List<EventoResumenFila> filas, boolean conParticipantes) {
+        List<EventoResumen> resumenes = filas.stream().map(EventoResumen::from).toList();
+        if (!conParticipantes || resumenes.isEmpty()) {
+            return resumenes;
+        }
+
+        Map<Long, EventoResumen> porId = new HashMap<>();
+        for (EventoResumen resumen : resumenes) {
+            resumen.setParticipantes(new ArrayList<>());
+            porId.put(resumen.getId(), resumen);
+        }
+        for (Object[] fila : eventoRepository.findUsernamesParticipantes(porId.keySet())) {
+            porId.get(((Number) fila[0]).longValue()).getParticipantes().add((String) fila[1]);
+        }
+        return resumenes;
     }
 
     public List<Object[]> getCantidadParticipantesEventosActivos() {
-        return eventoRepository.findCantidadParticipantesEventosActivos();
+        return eventosActivos.get().eventos().stream()
+                .map(evento -> new Object[] {evento.getId(), evento.getNombre(), evento.getCantidadParticipantes()})
+                .toList();
+    }
+
+    public EventoResumen getEventoMasProximo() {
+        List<EventoResumen> eventos = eventosActivos.get().eventos();
+        return eventos.isEmpty() ? null : eventos.get(0);
     }
 
-    public Evento getEventoMasProximo() {
-    return eventoRepository.findEventoMasProximo();
+    /**
+     * Búsqueda de texto sobre nombre, empresa y descripción, ordenada por relevancia.
+     * El índice en memoria devuelve ids y puntuaciones; la página se completa con una
+     * sola consulta por id. El cursor es la posición (puntuación, id) del último resultado.
+     * @param tipo filtro opcional por tipo de evento
+     * @param desde fecha mínima (inclusive), opcional
+     * @param hasta fecha máxima (inclusive), opcional
+     */
+    public CursorPage<EventoResumen> buscarEventos(String texto, TipoEvento tipo, Date desde, Date hasta,
+                                                   String cursor, int limite) {
+        // El cursor va ligado a la versión del índice: con otros documentos cambia el idf y las
+        // puntuaciones, y seguir por (puntuación, id) saltaría o repetiría resultados
+        long version = versionStamps.version(VersionStamps.EVENTOS);
+        List<BuscadorEventos.Resultado> resultados = buscador.buscar(texto, tipo, desde, hasta);
+
+        int inicio = 0;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] parts = Cursor.decode(cursor, 3);
+            if (Cursor.decodeLong(parts[0]) != version) {
+                throw new RuntimeException("Los eventos han cambiado desde la primera página; repite la búsqueda");
+            }
+            double puntuacion;
+            try {
+                puntuacion = Double.parseDouble(parts[1]);
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("Cursor inválido");
+            }
+            long id = Cursor.decodeLong(parts[2]);
+            while (inicio < resultados.size()
+                    && (resultados.get(inicio).puntuacion() > puntuacion
+                    || (resultados.get(inicio).puntuacion() == puntuacion && resultados.get(inicio).id() <= id))) {
+                inicio++;
+            }
+        }
+        List<BuscadorEventos.Resultado> pagina = resultados.subList(inicio, Math.min(resultados.size(), inicio + limite));
+        String siguiente = null;
+        if (inicio + limite < resultados.size()) {
+            BuscadorEventos.Resultado ultimo = pagina.get(pagina.size() - 1);
+            siguiente = Cursor.encode(version, ultimo.puntuacion(), ultimo.id());
+        }
+        if (pagina.isEmpty()) {
+            return new CursorPage<>(List.of(), null);
+        }
+
+        // Se conserva el orden de relevancia; un evento borrado entre el índice y la consulta se omite
+        Map<Long, EventoResumen> porId = new HashMap<>();
+        eventoRepository.findResumenByIds(pagina.stream().map(BuscadorEventos.Resultado::id).toList())
+                .forEach(fila -> porId.put(fila.getId(), EventoResumen.from(fila)));
+        List<EventoResumen> eventos = pagina.stream()
+                .map(resultado -> porId.get(resultado.id()))
+                .filter(Objects::nonNull)
+                .toList();
+        return new CursorPage<>(eventos, siguiente);
+    }
+
+    /**
+     * Instante hasta el que el conjunto de eventos activos no cambia salvo por escrituras
+     * (la fecha del más próximo); 0 si no hay ninguno
+     */
+    public long getVigenciaActivos() {
+        Date expiraEn = eventosActivos.get().expiraEn();
+        return expiraEn != null ? expiraEn.getTime() : 0;
     }
 
+    /**
+     * Cifras del panel de inicio. Salen de la foto de eventos activos, que se construye
+     * con una única consulta agregada.
+     */
+    public EventosDashboard getDashboard() {
+        EventosActivosSnapshot.Foto foto = eventosActivos.get();
+        List<EventoResumen> eventos = foto.eventos();
+        return new EventosDashboard(
+                eventos.subList(0, Math.min(3, eventos.size())),
+                eventos.isEmpty() ? null : eventos.get(0),
+                eventos.size(),
+                foto.totalParticipantes());
+    }
+
+    @Transactional
     public Evento updateEventoById(Evento request, Long eventoId){
-        Evento evento = eventoRepository.findById(eventoId).get();
+        Evento evento = eventoRepository.findByIdParaActualizar(eventoId)
+                .orElseThrow(() -> new RuntimeException("Evento no encontrado"));
 
         evento.setNombre(request.getNombre());
         evento.setFecha(request.getFecha());
         evento.setEmpresa(request.getEmpresa()); // Añadir esta línea
         evento.setTipo(request.getTipo()); // Asegúrate de también actualizar el tipo
         evento.setDescripcion(request.getDescripcion()); // Y la descripción si aplica
+        // Sin capacidad en la petición se conserva la actual (el formulario de edición no la envía)
+        if (request.getCapacidad() != null) {
+            if (request.getCapacidad() < evento.getCantidadParticipantes()) {
+                throw new RuntimeException("La capacidad no puede ser menor que las plazas ocupadas ("
+                        + evento.getCantidadParticipantes() + ")");
+            }
+            evento.setCapacidad(request.getCapacidad());
+        }
         
-        return eventoRepository.save(evento); // Guardar directamente aquí
+        Evento guardado = eventoRepository.saveAndFlush(evento); // Guardar directamente aquí
+        if (guardado.isArchivado()) {
+            // Si se ha movido a una fecha futura vuelve a los índices de eventos actuales
+            eventoRepository.actualizarArchivado(eventoId);
+        }
+        // Si se amplió la capacidad, entran los primeros de la lista de espera
+        promoverMientrasHayaPlazas(eventoId);
+        buscador.indexar(guardado);
+        registrarCambio(eventoId);
+        return guardado;
     }
 
     public String deleteEvento(Long eventoId) {
         try {
             eventoRepository.deleteById(eventoId);
+            buscador.eliminar(eventoId);
+            registrarCambio(eventoId);
             return "Evento eliminado";
         } catch (Exception e) {
             return "Error al eliminar evento";
         }
     }
 
+    /**
+     * Inscribe al usuario con un único INSERT sobre evento_usuario, sin cargar la lista de participantes.
+     * La plaza se reserva con un UPDATE condicional sobre el contador del evento, que solo bloquea
+     * la fila de ese evento y es seguro entre varios nodos; si no quedan plazas el usuario pasa
+     * a la lista de espera en orden de llegada. La fila del evento se bloquea antes de mirar las
+     * plazas, igual que en la baja: una baja concurrente no puede liberar la plaza después de
+     * que esta alta haya visto el evento lleno y pasado a la lista de espera.
+     */
     @Transactional
     public String addParticipante(String username, Long eventoId) throws RuntimeException {
-        Evento evento = getEventoById(eventoId);
-        Usuario usuario = usuarioService.getUserByUsername(username);
-        if (!evento.getParticipantes().contains(username)){
-            evento.addParticipante(usuario);
-            eventoRepository.save(evento);
-        } else {
+        String nombreEvento = bloquearEvento(eventoId);
+        Long usuarioId = usuarioService.getUserIdByUsername(username);
+        if (eventoRepository.existsParticipante(eventoId, usuarioId)) {
             throw new RuntimeException("Participante ya se inscribió al evento");
         }
-        return "Participante " + username + " se inscribió al evento " + evento.getNombre();
+
+        if (eventoRepository.reservarPlaza(eventoId) == 1) {
+            // La clave primaria (evento_id, usuario_id) detecta una inscripción duplicada concurrente;
+            // la excepción deshace también la reserva de la plaza
+            if (eventoRepository.insertParticipante(eventoId, usuarioId) == 0) {
+                throw new RuntimeException("Participante ya se inscribió al evento");
+            }
+            registrarCambio(eventoId);
+            return "Participante " + username + " se inscribió al evento " + nombreEvento;
+        }
+
+        if (listaEsperaRepository.insertEspera(eventoId, usuarioId) == 0) {
+            throw new RuntimeException("Participante ya está en la lista de espera del evento");
+        }
+        long posicion = listaEsperaRepository.findPosicion(eventoId, usuarioId);
+        return "Evento completo: " + username + " quedó en la lista de espera del evento " + nombreEvento
+                + " (posición " + posicion + ")";
     }
 
+    /**
+     * Da de baja al usuario del evento (o de su lista de espera). La plaza liberada pasa
+     * directamente al primero de la lista de espera. Con el evento bloqueado, la lista de espera
+     * que se consulta ya incluye a cualquiera que no encontró plaza.
+     */
+    @Transactional
     public String removeParticipante(String username, Long eventoId) throws RuntimeException {
-        Evento evento = getEventoById(eventoId);
-        Usuario usuario = usuarioService.getUserByUsername(username);
-        if (evento.getParticipantes().contains(username)){
-            evento.removeParticipante(usuario);
-            eventoRepository.save(evento);
-            return username + " se eliminó con éxito del evento: " + evento.getNombre();
-        } else {
-            throw new RuntimeException("Usuario no encontrado en el evento");
+        String nombreEvento = bloquearEvento(eventoId);
+        Long usuarioId = usuarioService.getUserIdByUsername(username);
+        if (eventoRepository.deleteParticipante(eventoId, usuarioId) == 1) {
+            if (!promoverSiguiente(eventoId)) {
+                eventoRepository.liberarPlaza(eventoId);
+            }
+            registrarCambio(eventoId);
+            return username + " se eliminó con éxito del evento: " + nombreEvento;
+        }
+        if (listaEsperaRepository.deleteEspera(eventoId, usuarioId) == 1) {
+            return username + " se eliminó de la lista de espera del evento: " + nombreEvento;
+        }
+        throw new RuntimeException("Usuario no encontrado en el evento");
+    }
+
+    /**
+     * Inscribe al primero de la lista de espera en una plaza ya reservada
+     * @return false si no había nadie esperando
+     */
+    private boolean promoverSiguiente(Long eventoId) {
+        while (true) {
+            List<Object[]> siguiente = listaEsperaRepository.findPrimeroEnEspera(eventoId);
+            if (siguiente.isEmpty()) {
+                return false;
+            }
+            Object[] fila = siguiente.get(0);
+            listaEsperaRepository.deleteEsperaById(((Number) fila[0]).longValue());
+            if (eventoRepository.insertParticipante(eventoId, ((Number) fila[1]).longValue()) == 1) {
+                return true;
+            }
+            // Ya estaba inscrito: se descarta de la lista y se prueba con el siguiente
+        }
+    }
+
+    private void promoverMientrasHayaPlazas(Long eventoId) {
+        while (!listaEsperaRepository.findPrimeroEnEspera(eventoId).isEmpty()
+                && eventoRepository.reservarPlaza(eventoId) == 1) {
+            if (!promoverSiguiente(eventoId)) {
+                eventoRepository.liberarPlaza(eventoId);
+                return;
+            }
+        }
+    }
+
+    public boolean esParticipante(Long eventoId, Long usuarioId) {
+        return eventoRepository.existsParticipante(eventoId, usuarioId);
+    }
+
+    private String getNombreEvento(Long eventoId) {
+        return eventoRepository.findNombreById(eventoId)
+                .orElseThrow(() -> new RuntimeException("Evento no encontrado"));
+    }
+
+    private String bloquearEvento(Long eventoId) {
+        return eventoRepository.findNombreByIdParaActualizar(eventoId)
+                .orElseThrow(() -> new RuntimeException("Evento no encontrado"));
+    }
+
+    /**
+     * Datos públicos de los participantes del evento con una única consulta sobre
+     * evento_usuario JOIN usuario (nunca se cargan entidades Usuario ni contraseñas)
+     * @param porNombre ordena por nombre y apellido; si es false, por id de usuario
+     */
+    public CursorPage<ParticipanteInfo> getParticipantesDeEvento(Long eventoId, String cursor, int limite, boolean porNombre) {
+        getNombreEvento(eventoId); // Lanzará excepción si no existe
+        if (!porNombre) {
+            List<ParticipanteInfo> filas = eventoRepository.findParticipantesKeyset(
+                    eventoId, Cursor.afterId(cursor), limite + 1);
+            return CursorPage.of(filas, limite, participante -> Cursor.encode(participante.getId()));
+        }
+
+        long cursorId = 0;
+        String cursorNombre = "";
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] parts = Cursor.decode(cursor, 2);
+            cursorId = Cursor.decodeLong(parts[0]);
+            cursorNombre = parts[1];
         }
+        List<ParticipanteInfo> filas = eventoRepository.findParticipantesPorNombreKeyset(
+                eventoId, cursorNombre, cursorId, limite + 1);
+        return CursorPage.of(filas, limite,
+                participante -> Cursor.encode(participante.getId(), nombreCompleto(participante)));
     }
 
-    public List<String> getParticipantesDeEvento(Long eventoId) {
-        Evento evento = getEventoById(eventoId);
-        return evento.getParticipantes();
+    // Misma clave de ordenación que findParticipantesPorNombreKeyset
+    private static String nombreCompleto(ParticipanteInfo participante) {
+        return (participante.getNombre() != null ? participante.getNombre() : "") + " "
+                + (participante.getApellido() != null ? participante.getApellido() : "");
     }
 
     /**
@@ -105,8 +438,7 @@ public class EventoService {
      * @return El número total de participantes
      */
     public Integer getTotalParticipantesEventosActivos() {
-        Integer total = eventoRepository.countTotalParticipantesEventosActivos();
-        return total != null ? total : 0;
+        return (int) eventosActivos.get().totalParticipantes();
     }
 
     /**
@@ -114,6 +446,6 @@ public class EventoService {
      * @return El número total de eventos activos
      */
     public Integer getCountEventosActivos() {
-        return eventoRepository.findEventosActivos().size();
+        return eventosActivos.get().eventos().size();
     }
 }
@@ -0,0 +1,123 @@
+package com.example.ProyectoWeb.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import com.example.ProyectoWeb.config.AfterCommit;
+import com.example.ProyectoWeb.config.VersionStamps;
+import com.example.ProyectoWeb.entity.EventoActivoFila;
+import com.example.ProyectoWeb.entity.EventoResumen;
+import com.example.ProyectoWeb.repositories.IEventoRepository;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Foto en memoria de los eventos activos con sus contadores, compartida por los endpoints
+ * públicos del panel (activos, activos3, proximo, count, participantes, total-participantes
+ * y dashboard).
+ *
+ * Se descarta en cuanto pasa la fecha del evento más próximo, porque en ese instante deja
+ * de estar activo, tras cada escritura de EventoService una vez confirmada la transacción y
+ * cuando cambia el sello de eventos de VersionStamps, que recoge las escrituras de otros nodos.
+ * Se reconstruye con una sola consulta en el primer acceso posterior.
+ */
+@Component
+public class EventosActivosSnapshot {
+
+    /**
+     * @param eventos eventos activos ordenados por (fecha, id)
+     * @param totalParticipantes suma de participantes de todos ellos
+     * @param expiraEn fecha del primer evento; null si no hay ninguno (solo caduca con una escritura)
+     */
+    public record Foto(List<EventoResumen> eventos, long totalParticipantes, Date expiraEn) {
+
+        boolean vigente(long ahora) {
+            return expiraEn == null || ahora < expiraEn.getTime();
+        }
+    }
+
+    // Foto publicada junto con el sello de eventos leído antes de construirla
+    private record Vigente(Foto foto, long version) {
+    }
+
+    private final IEventoRepository eventoRepository;
+    private final VersionStamps versionStamps;
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer rebuildTimer;
+
+    // Se incrementa con cada invalidación; una reconstrucción que empezó antes no se publica
+    private final AtomicLong generacion = new AtomicLong();
+    private volatile Vigente vigente;
+
+    public EventosActivosSnapshot(IEventoRepository eventoRepository, VersionStamps versionStamps, MeterRegistry meterRegistry) {
+        this.eventoRepository = eventoRepository;
+        this.versionStamps = versionStamps;
+        this.hits = Counter.builder("eventos.activos.snapshot.hits")
+                .description("Lecturas servidas desde la foto de eventos activos")
+                .register(meterRegistry);
+        this.misses = Counter.builder("eventos.activos.snapshot.misses")
+                .description("Lecturas que tuvieron que reconstruir la foto")
+                .register(meterRegistry);
+        this.rebuildTimer = Timer.builder("eventos.activos.snapshot.rebuild")
+                .description("Tiempo de reconstrucción de la foto de eventos activos")
+                .register(meterRegistry);
+    }
+
+    public Foto get() {
+        Vigente actual = vigente;
+        if (valida(actual)) {
+            hits.increment();
+            return actual.foto();
+        }
+        misses.increment();
+        return reconstruir();
+    }
+
+    private boolean valida(Vigente actual) {
+        return actual != null
+                && actual.version() == versionStamps.version(VersionStamps.EVENTOS)
+                && actual.foto().vigente(System.currentTimeMillis());
+    }
+
+    private synchronized Foto reconstruir() {
+        // Otro hilo pudo reconstruirla mientras se esperaba el monitor
+        Vigente actual = vigente;
+        if (valida(actual)) {
+            return actual.foto();
+        }
+
+        long generacionInicial = generacion.get();
+        // Se lee antes de consultar: si otro nodo escribe mientras tanto, la foto nace caducada
+        long version = versionStamps.version(VersionStamps.EVENTOS);
+        Foto nueva = rebuildTimer.record(() -> {
+            List<EventoActivoFila> filas = eventoRepository.findResumenActivos();
+            List<EventoResumen> eventos = filas.stream().map(EventoResumen::from).toList();
+            // Los totales vienen repetidos en cada fila (funciones de ventana)
+            long total = filas.isEmpty() || filas.get(0).getTotalParticipantes() == null
+                    ? 0 : filas.get(0).getTotalParticipantes();
+            return new Foto(eventos, total, eventos.isEmpty() ? null : eventos.get(0).getFecha());
+        });
+        if (generacion.get() == generacionInicial) {
+            vigente = new Vigente(nueva, version);
+        }
+        return nueva;
+    }
+
+    /**
+     * Descarta la foto. Dentro de una transacción se hace al confirmarla, para que una
+     * reconstrucción concurrente no vuelva a leer los datos anteriores a la escritura.
+     */
+    public void invalidar() {
+        AfterCommit.run(this::descartar);
+    }
+
+    private void descartar() {
+        generacion.incrementAndGet();
+        vigente = null;
+    }
+}
@@ -0,0 +1,274 @@
+package com.example.ProyectoWeb.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.ProyectoWeb.entity.EventoResumen;
+import com.example.ProyectoWeb.entity.EventosDelta;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stream SSE de los eventos activos y sus participantes.
+ *
+ * No escucha cada escritura por separado: las escrituras de EventoService (inscripciones,
+ * bajas, altas, modificaciones y borrados) invalidan la foto de EventosActivosSnapshot al
+ * confirmarse, y cada ventana se compara la foto actual con la anterior. Así todos los
+ * cambios de una ventana salen en un único delta, calculado con como mucho una consulta
+ * y serializado una sola vez para todas las conexiones.
+ *
+ * Las conexiones no ocupan hilo mientras esperan (SseEmitter es asíncrono); los envíos los
+ * hace un pool que crece hasta eventos.stream.hilos y encola a partir de ahí. Una conexión
+ * que sigue ocupada con el envío anterior no acumula mensajes: se marca como desincronizada
+ * y en su siguiente envío recibe un snapshot completo. Si lleva más de max-bloqueo-ms
+ * bloqueada se descarta y se interrumpe su envío; la escritura bloqueada termina como muy
+ * tarde con el timeout de escritura de Tomcat (server.tomcat.connection-timeout). Así unos
+ * pocos clientes lentos solo retienen su propio hilo y no paran el reparto a los demás.
+ *
+ * Las ventanas las lanza un planificador propio, no el compartido de @Scheduled, para que
+ * un trabajo periódico largo (reconstrucciones, archivado...) no congele el stream.
+ */
+@Component
+public class EventosStream {
+
+    private static final class Suscriptor {
+        final SseEmitter emitter;
+        final AtomicBoolean enviando = new AtomicBoolean();
+        volatile boolean desincronizado = true; // el primer envío es siempre un snapshot
+        volatile long ocupadoDesde;
+        // Hilo que está escribiendo, para interrumpirlo si la conexión se descarta
+        volatile Thread hilo;
+
+        Suscriptor(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+
+    private final EventosActivosSnapshot eventosActivos;
+    private final ObjectMapper objectMapper;
+    private final long timeoutMs;
+    private final int maxConexiones;
+    private final long maxBloqueoMs;
+    private final long heartbeatMs;
+    private final long ventanaMs;
+    private final ThreadPoolExecutor envios;
+    private final ScheduledExecutorService planificador = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "eventos-stream-ventana");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Set<Suscriptor> suscriptores = ConcurrentHashMap.newKeySet();
+    private final Counter conflaciones;
+    private final Counter descartadas;
+
+    // Última foto publicada; solo la usa el hilo del planificador
+    private EventosActivosSnapshot.Foto ultimaFoto;
+    private long ultimoEnvio;
+
+    public EventosStream(EventosActivosSnapshot eventosActivos,
+                         ObjectMapper objectMapper,
+                         @Value("${eventos.stream.timeout-ms:1800000}") long timeoutMs,
+                         @Value("${eventos.stream.max-conexiones:10000}") int maxConexiones,
+                         @Value("${eventos.stream.max-bloqueo-ms:30000}") long maxBloqueoMs,
+                         @Value("${eventos.stream.heartbeat-ms:15000}") long heartbeatMs,
+                         @Value("${eventos.stream.hilos:32}") int hilos,
+                         @Value("${eventos.stream.ventana-ms:500}") long ventanaMs,
+                         MeterRegistry meterRegistry) {
+        this.eventosActivos = eventosActivos;
+        this.objectMapper = objectMapper;
+        this.timeoutMs = timeoutMs;
+        this.maxConexiones = maxConexiones;
+        this.maxBloqueoMs = maxBloqueoMs;
+        this.heartbeatMs = heartbeatMs;
+        this.ventanaMs = ventanaMs;
+        AtomicInteger contador = new AtomicInteger();
+        // Con core = max, el pool crea un hilo nuevo por envío hasta llegar a "hilos" antes de
+        // encolar; los hilos ociosos se liberan pasados 30 s
+        this.envios = new ThreadPoolExecutor(hilos, hilos, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "eventos-stream-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.envios.allowCoreThreadTimeOut(true);
+        Gauge.builder("eventos.stream.conexiones", suscriptores, Set::size)
+                .description("Conexiones SSE abiertas")
+                .register(meterRegistry);
+        this.conflaciones = Counter.builder("eventos.stream.conflaciones")
+                .description("Deltas sustituidos por un snapshot porque la conexión seguía ocupada")
+                .register(meterRegistry);
+        this.descartadas = Counter.builder("eventos.stream.descartadas")
+                .description("Conexiones cerradas por no consumir los mensajes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Abre una conexión; recibe un snapshot en la siguiente ventana y después solo deltas
+     * @throws IllegalStateException si se ha alcanzado el máximo de conexiones
+     */
+    public SseEmitter suscribir() {
+        if (suscriptores.size() >= maxConexiones) {
+            throw new IllegalStateException("Demasiadas conexiones abiertas");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Suscriptor suscriptor = new Suscriptor(emitter);
+        emitter.onCompletion(() -> suscriptores.remove(suscriptor));
+        emitter.onTimeout(() -> suscriptores.remove(suscriptor));
+        emitter.onError(error -> suscriptores.remove(suscriptor));
+        suscriptores.add(suscriptor);
+        return emitter;
+    }
+
+    @PostConstruct
+    void iniciar() {
+        planificador.scheduleWithFixedDelay(() -> {
+            try {
+                publicar();
+            } catch (RuntimeException e) {
+                // Una ventana fallida (p. ej. la base de datos no responde) no detiene las siguientes
+                System.err.println("Error al publicar el stream de eventos: " + e.getMessage());
+            }
+        }, ventanaMs, ventanaMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void publicar() {
+        if (suscriptores.isEmpty()) {
+            ultimaFoto = null;
+            return;
+        }
+        EventosActivosSnapshot.Foto foto = eventosActivos.get();
+        EventosActivosSnapshot.Foto anterior = ultimaFoto;
+        ultimaFoto = foto;
+
+        String delta = null;
+        if (anterior != null && anterior != foto) {
+            EventosDelta cambios = diferencia(anterior, foto);
+            if (!cambios.eventos().isEmpty() || !cambios.eliminados().isEmpty()) {
+                delta = json(cambios);
+            }
+        }
+        String snapshot = null;
+        boolean heartbeat = System.currentTimeMillis() - ultimoEnvio >= heartbeatMs;
+
+        for (Suscriptor suscriptor : suscriptores) {
+            boolean necesitaSnapshot = suscriptor.desincronizado;
+            if (delta == null && !necesitaSnapshot && !heartbeat) {
+                continue;
+            }
+            if (!suscriptor.enviando.compareAndSet(false, true)) {
+                // Sigue escribiendo el mensaje anterior: no se encola nada, se resincroniza después
+                if (delta != null && !suscriptor.desincronizado) {
+                    suscriptor.desincronizado = true;
+                    conflaciones.increment();
+                }
+                if (System.currentTimeMillis() - suscriptor.ocupadoDesde > maxBloqueoMs) {
+                    descartar(suscriptor);
+                }
+                continue;
+            }
+
+            SseEmitter.SseEventBuilder mensaje;
+            if (necesitaSnapshot) {
+                if (snapshot == null) {
+                    snapshot = json(new EventosDelta(foto.eventos(), List.of(), foto.eventos().size(), foto.totalParticipantes()));
+                }
+                mensaje = SseEmitter.event().name("snapshot").data(snapshot);
+            } else if (delta != null) {
+                mensaje = SseEmitter.event().name("delta").data(delta);
+            } else {
+                mensaje = SseEmitter.event().comment("ping");
+            }
+            enviar(suscriptor, mensaje);
+        }
+        if (delta != null || heartbeat) {
+            ultimoEnvio = System.currentTimeMillis();
+        }
+    }
+
+    private void enviar(Suscriptor suscriptor, SseEmitter.SseEventBuilder mensaje) {
+        suscriptor.ocupadoDesde = System.currentTimeMillis();
+        suscriptor.desincronizado = false;
+        try {
+            envios.execute(() -> {
+                suscriptor.hilo = Thread.currentThread();
+                try {
+                    suscriptor.emitter.send(mensaje);
+                } catch (IOException | IllegalStateException e) {
+                    // Cliente desconectado, emitter ya completado o timeout de escritura
+                    suscriptores.remove(suscriptor);
+                } finally {
+                    suscriptor.hilo = null;
+                    // La interrupción era para este envío; el hilo vuelve limpio al pool
+                    Thread.interrupted();
+                    suscriptor.enviando.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            suscriptor.desincronizado = true;
+            suscriptor.enviando.set(false);
+        }
+    }
+
+    private void descartar(Suscriptor suscriptor) {
+        if (suscriptores.remove(suscriptor)) {
+            descartadas.increment();
+            Thread hilo = suscriptor.hilo;
+            if (hilo != null) {
+                hilo.interrupt();
+            }
+            suscriptor.emitter.complete();
+        }
+    }
+
+    // Eventos añadidos o modificados y eventos que ya no están entre los activos
+    private static EventosDelta diferencia(EventosActivosSnapshot.Foto anterior, EventosActivosSnapshot.Foto actual) {
+        Map<Long, EventoResumen> previos = new HashMap<>();
+        for (EventoResumen evento : anterior.eventos()) {
+            previos.put(evento.getId(), evento);
+        }
+        List<EventoResumen> cambiados = new ArrayList<>();
+        for (EventoResumen evento : actual.eventos()) {
+            if (!evento.equals(previos.remove(evento.getId()))) {
+                cambiados.add(evento);
+            }
+        }
+        return new EventosDelta(cambiados, new ArrayList<>(previos.keySet()),
+                actual.eventos().size(), actual.totalParticipantes());
+    }
+
+    private String json(EventosDelta mensaje) {
+        try {
+            return objectMapper.writeValueAsString(mensaje);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @PreDestroy
+    void cerrar() {
+        planificador.shutdownNow();
+        suscriptores.forEach(suscriptor -> suscriptor.emitter.complete());
+        envios.shutdownNow();
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.ProyectoWeb.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exportación de eventos, participantes, invitados externos e hitos en CSV o NDJSON.
+ * Las filas se leen con un cursor de solo avance (fetch size acotado dentro de una
+ * transacción de solo lectura, que es lo que necesita el driver de PostgreSQL para no
+ * cargar el resultado entero) y se escriben según llegan, así que la memoria usada no
+ * depende del tamaño de la exportación.
+ */
+@Service
+public class ExportacionService {
+
+    public enum Formato {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        public final String contentType;
+        public final String extension;
+
+        Formato(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+    }
+
+    public enum Tipo {
+        EVENTOS("SELECT e.id, e.nombre, e.tipo, e.fecha, e.empresa, e.descripcion, e.capacidad, " +
+                "e.cantidad_participantes, " +
+                "(SELECT COUNT(*) FROM invitado_externo ie WHERE ie.evento_id = e.id) AS cantidad_invitados_externos " +
+                "FROM evento e", "e.id", "e.id"),
+        PARTICIPANTES("SELECT eu.evento_id, u.id AS usuario_id, u.username, u.nombre, u.apellido, " +
+                "u.correo_electronico AS correo " +
+                "FROM evento_usuario eu JOIN usuario u ON u.id = eu.usuario_id", "eu.evento_id", "eu.evento_id, u.id"),
+        INVITADOS("SELECT ie.id, ie.evento_id, ie.nombre, ie.apellido, ie.correo, ie.telefono, ie.empresa " +
+                "FROM invitado_externo ie", "ie.evento_id", "ie.evento_id, ie.id"),
+        HITOS("SELECT h.id, h.titulo, h.descripcion, h.categoria, h.fecha_registro, h.usuario_id, u.username, h.evento_id " +
+                "FROM hito h JOIN usuario u ON u.id = h.usuario_id", "h.evento_id", "h.id");
+
+        private final String select;
+        private final String columnaEvento;
+        private final String orden;
+
+        Tipo(String select, String columnaEvento, String orden) {
+            this.select = select;
+            this.columnaEvento = columnaEvento;
+            this.orden = orden;
+        }
+
+        String sql(boolean porEvento) {
+            return select + (porEvento ? " WHERE " + columnaEvento + " = ?" : "") + " ORDER BY " + orden;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public ExportacionService(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              ObjectMapper objectMapper,
+                              @Value("${exportacion.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Escribe la exportación en out. No cierra out.
+     * @param eventoId Limita la exportación a un evento, o null para todos
+     * @param gzip Comprime la salida según se escribe
+     */
+    public void exportar(Tipo tipo, Formato formato, Long eventoId, boolean gzip, OutputStream out) throws IOException {
+        GZIPOutputStream comprimido = gzip ? new GZIPOutputStream(out, 8192) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(gzip ? comprimido : out, StandardCharsets.UTF_8), 16384);
+        EscritorFilas escritor = formato == Formato.CSV ? new EscritorCsv(writer) : new EscritorNdjson(writer);
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement(tipo.sql(eventoId != null),
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                if (eventoId != null) {
+                    statement.setLong(1, eventoId);
+                }
+                return statement;
+            }, escritor));
+        } catch (UncheckedIOException e) {
+            // El cliente ha cortado la descarga
+            throw e.getCause();
+        }
+        writer.flush();
+        if (comprimido != null) {
+            comprimido.finish();
+        }
+    }
+
+    private abstract static class EscritorFilas implements ResultSetExtractor<Void> {
+        final Writer writer;
+        String[] columnas;
+
+        EscritorFilas(Writer writer) {
+            this.writer = writer;
+        }
+
+        // La cabecera sale de los metadatos, así que se escribe aunque no haya filas
+        @Override
+        public Void extractData(ResultSet rs) throws SQLException {
+            try {
+                ResultSetMetaData metaData = rs.getMetaData();
+                columnas = new String[metaData.getColumnCount()];
+                for (int i = 0; i < columnas.length; i++) {
+                    columnas[i] = metaData.getColumnLabel(i + 1);
+                }
+                cabecera();
+                while (rs.next()) {
+                    fila(rs);
+                }
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        abstract void cabecera() throws IOException;
+
+        abstract void fila(ResultSet rs) throws IOException, SQLException;
+
+        // Fechas en ISO 8601; el resto de tipos se exportan con su representación de texto
+        static Object valor(ResultSet rs, int columna) throws SQLException {
+            Object valor = rs.getObject(columna);
+            if (valor instanceof Timestamp timestamp) {
+                return timestamp.toLocalDateTime().toString();
+            }
+            if (valor instanceof java.sql.Date fecha) {
+                return fecha.toLocalDate().toString();
+            }
+            return valor;
+        }
+    }
+
+    private static final class EscritorCsv extends EscritorFilas {
+
+        EscritorCsv(Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        void cabecera() throws IOException {
+            for (int i = 0; i < columnas.length; i++) {
+                if (i > 0) writer.write(',');
+                campo(columnas[i]);
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        void fila(ResultSet rs) throws IOException, SQLException {
+            for (int i = 0; i < columnas.length; i++) {
+                if (i > 0) writer.write(',');
+                Object valor = valor(rs, i + 1);
+                if (valor instanceof Number) {
+                    campo(valor.toString());
+                } else if (valor != null) {
+                    campo(texto(valor.toString()));
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        // Un texto que empieza por =, +, - o @ se interpretaría como fórmula al abrir el CSV en una
+        // hoja de cálculo; con el apóstrofo delante se muestra como texto
+        private static String texto(String valor) {
+            if (!valor.isEmpty() && "=+-@\t\r".indexOf(valor.charAt(0)) >= 0) {
+                return "'" + valor;
+            }
+            return valor;
+        }
+
+        // RFC 4180: entre comillas solo si hace falta, duplicando las comillas internas
+        private void campo(String texto) throws IOException {
+            if (texto.indexOf(',') < 0 && texto.indexOf('"') < 0 && texto.indexOf('\n') < 0 && texto.indexOf('\r') < 0) {
+                writer.write(texto);
+                return;
+            }
+            writer.write('"');
+            writer.write(texto.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    private final class EscritorNdjson extends EscritorFilas {
+        private final JsonGenerator generator;
+
+        EscritorNdjson(Writer writer) throws IOException {
+            super(writer);
+            this.generator = objectMapper.getFactory().createGenerator(writer)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM)
+                    .setRootValueSeparator(null);
+        }
+
+        @Override
+        void cabecera() {
+        }
+
+        @Override
+        void fila(ResultSet rs) throws IOException, SQLException {
+            generator.writeStartObject();
+            for (int i = 0; i < columnas.length; i++) {
+                generator.writeFieldName(columnas[i]);
+                Object valor = valor(rs, i + 1);
+                if (valor == null) {
+                    generator.writeNull();
+                } else if (valor instanceof Number || valor instanceof Boolean) {
+                    generator.writeObject(valor);
+                } else {
+                    generator.writeString(valor.toString());
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+            generator.flush();
+        }
+    }
+}
@@ -2,11 +2,16 @@ package com.example.ProyectoWeb.services;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import com.example.ProyectoWeb.config.SingleFlight;
+import com.example.ProyectoWeb.config.VersionStamps;
 import com.example.ProyectoWeb.entity.Hito;
 import com.example.ProyectoWeb.entity.Evento;
 import com.example.ProyectoWeb.entity.Usuario;
+import com.example.ProyectoWeb.pagination.Cursor;
+import com.example.ProyectoWeb.pagination.CursorPage;
 import com.example.ProyectoWeb.repositories.IHitoRepository;
 
 import java.util.Date;
@@ -19,10 +24,13 @@ public class HitoService {
     private final IHitoRepository hitoRepository;
     private final UsuarioService usuarioService;
     private final EventoService eventoService;
+    private final VersionStamps versionStamps;
+    private final SingleFlight singleFlight;
 
     public void saveHito(Hito hito) {
         // Guarda el hito en la base de datos
         hitoRepository.save(hito);
+        versionStamps.bump(VersionStamps.HITOS, VersionStamps.hito(hito.getId()));
         System.out.println("Hito guardado con éxito");
     }
 
@@ -35,6 +43,33 @@ public class HitoService {
         return hitoRepository.findAll();
     }
 
+    /**
+     * Hitos paginados por id
+     */
+    public CursorPage<Hito> getHitos(String cursor, int limite) {
+        long desdeId = Cursor.afterId(cursor);
+        return singleFlight.execute("hitos", desdeId + ":" + limite, () -> {
+            List<Hito> filas = inicializados(
+                    hitoRepository.findByIdGreaterThanOrderByIdAsc(desdeId, Limit.of(limite + 1)));
+            return CursorPage.of(filas, limite, hito -> Cursor.encode(hito.getId()));
+        });
+    }
+
+    /**
+     * Los hitos de las lecturas agrupadas se comparten entre hilos, así que las colecciones
+     * perezosas del evento relacionado se cargan antes de entregarlos
+     */
+    private static List<Hito> inicializados(List<Hito> hitos) {
+        for (Hito hito : hitos) {
+            Evento evento = hito.getEventoRelacionado();
+            if (evento != null) {
+                evento.getParticipantes();
+                evento.getInvitadosExternos();
+            }
+        }
+        return hitos;
+    }
+
     public Hito updateHitoById(Hito request, Long id) {
         Hito hito = hitoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Hito no encontrado"));
@@ -54,6 +89,7 @@ public class HitoService {
         Hito hito = hitoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Hito no encontrado"));
         hitoRepository.delete(hito);
+        versionStamps.bump(VersionStamps.HITOS, VersionStamps.hito(id));
         return "Hito eliminado";
     }
 
@@ -61,7 +97,7 @@ public class HitoService {
         Evento evento = eventoService.getEventoById(eventoId);
         Usuario usuario = usuarioService.getUserById(userId);
 
-        if (!evento.getParticipantes().contains(usuario.getUsername())) {
+        if (!eventoService.esParticipante(eventoId, userId)) {
             throw new RuntimeException("El usuario no participó en este evento");
         }
 
@@ -73,7 +109,9 @@ public class HitoService {
         hito.setBeneficiario(usuario);
         hito.setEventoRelacionado(evento);
 
-        return hitoRepository.save(hito);
+        Hito guardado = hitoRepository.save(hito);
+        versionStamps.bump(VersionStamps.HITOS, VersionStamps.hito(guardado.getId()));
+        return guardado;
     }
 
     /**
@@ -86,7 +124,8 @@ public class HitoService {
         eventoService.getEventoById(eventoId); // Lanzará excepción si no existe
         
         // Obtener los hitos asociados al evento
-        return hitoRepository.findByEventoId(eventoId);
+        return singleFlight.execute("hitos.evento", eventoId,
+                () -> inicializados(hitoRepository.findByEventoId(eventoId)));
     }
     /**
      * Obtiene todos los hitos donde un usuario específico es el beneficiario
@@ -98,6 +137,7 @@ public class HitoService {
         usuarioService.getUserById(userId); // Lanzará excepción si no existe
         
         // Obtener los hitos donde el usuario es beneficiario
-        return hitoRepository.findByBeneficiarioId(userId);
+        return singleFlight.execute("hitos.beneficiario", userId,
+                () -> inicializados(hitoRepository.findByBeneficiarioId(userId)));
     }
 }
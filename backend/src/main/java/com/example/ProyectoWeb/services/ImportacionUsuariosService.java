@@ -0,0 +1,328 @@
+package com.example.ProyectoWeb.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import com.example.ProyectoWeb.auth.RegisterRequest;
+import com.example.ProyectoWeb.config.VersionStamps;
+import com.example.ProyectoWeb.entity.Role;
+import com.example.ProyectoWeb.repositories.IUsuarioRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Importación masiva de usuarios desde CSV o NDJSON.
+ * El fichero se vuelca a disco y se procesa en segundo plano por bloques: las
+ * contraseñas se codifican en paralelo en un ForkJoinPool propio y las filas se
+ * insertan con batches JDBC. Los duplicados se informan por fila sin abortar el fichero.
+ * El estado de una importación terminada se puede consultar durante importacion.retencion-ms.
+ * Se guardan como mucho importacion.max-errores errores por fila, además del total.
+ */
+@Service
+public class ImportacionUsuariosService {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO usuario (correo_electronico, nombre, apellido, username, password, rol, token_version, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, 0, 0) ON CONFLICT DO NOTHING";
+
+    private final IUsuarioRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final VersionStamps versionStamps;
+    private final int tamanoBloque;
+    private final long retencionMs;
+    private final int maxErrores;
+    private final ForkJoinPool hashingPool;
+    private final ExecutorService jobExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "importacion-usuarios");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, Estado> jobs = new ConcurrentHashMap<>();
+
+    public ImportacionUsuariosService(IUsuarioRepository userRepository,
+                                      PasswordEncoder passwordEncoder,
+                                      JdbcTemplate jdbcTemplate,
+                                      ObjectMapper objectMapper,
+                                      VersionStamps versionStamps,
+                                      @Value("${importacion.tamano-bloque:500}") int tamanoBloque,
+                                      @Value("${importacion.hashing-parallelism:0}") int hashingParallelism,
+                                      @Value("${importacion.retencion-ms:3600000}") long retencionMs,
+                                      @Value("${importacion.max-errores:1000}") int maxErrores) {
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.versionStamps = versionStamps;
+        this.tamanoBloque = tamanoBloque;
+        this.retencionMs = retencionMs;
+        this.maxErrores = maxErrores;
+        // Por defecto la mitad de los núcleos, para no dejar sin CPU a los logins
+        int parallelism = hashingParallelism > 0
+                ? hashingParallelism
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.hashingPool = new ForkJoinPool(parallelism);
+    }
+
+    public enum Formato {
+        CSV, NDJSON
+    }
+
+    /**
+     * Estado y progreso de una importación, copiado en el momento de la consulta
+     * @param totalErrores errores encontrados, aunque errores solo guarde los primeros
+     */
+    public record EstadoImportacion(String jobId, String estado, int procesadas, int creadas,
+                                   int totalErrores, List<ErrorFila> errores) {
+    }
+
+    public record ErrorFila(int fila, String mensaje) {
+    }
+
+    // Estado mutable de un trabajo; solo lo modifica el hilo de importación
+    private static class Estado {
+        private final String jobId;
+        private volatile String estado = "PENDIENTE";
+        private final AtomicInteger procesadas = new AtomicInteger();
+        private final AtomicInteger creadas = new AtomicInteger();
+        // Protegidos por this: se leen desde las peticiones de consulta
+        private final List<ErrorFila> errores = new ArrayList<>();
+        private int totalErrores;
+        // Instante en que terminó (0 mientras sigue pendiente o en curso)
+        private volatile long terminadaEn;
+
+        private Estado(String jobId) {
+            this.jobId = jobId;
+        }
+
+        synchronized void error(ErrorFila error, int maxErrores) {
+            totalErrores++;
+            if (errores.size() < maxErrores) {
+                errores.add(error);
+            }
+        }
+
+        synchronized EstadoImportacion foto() {
+            return new EstadoImportacion(jobId, estado, procesadas.get(), creadas.get(),
+                    totalErrores, List.copyOf(errores));
+        }
+    }
+
+    private record Fila(int numero, RegisterRequest datos) {
+    }
+
+    /**
+     * Guarda el contenido recibido en un fichero temporal y lanza la importación
+     * @return El identificador del trabajo para consultar su progreso
+     */
+    public String iniciar(InputStream contenido, Formato formato) throws IOException {
+        Path fichero = Files.createTempFile("importacion-usuarios-", "." + formato.name().toLowerCase());
+        Files.copy(contenido, fichero, StandardCopyOption.REPLACE_EXISTING);
+
+        Estado estado = new Estado(UUID.randomUUID().toString());
+        jobs.put(estado.jobId, estado);
+        jobExecutor.submit(() -> procesar(fichero, formato, estado));
+        return estado.jobId;
+    }
+
+    public EstadoImportacion getEstado(String jobId) {
+        Estado estado = jobs.get(jobId);
+        if (estado == null) {
+            throw new RuntimeException("Importación no encontrada");
+        }
+        return estado.foto();
+    }
+
+    // Olvida las importaciones terminadas hace más de retencionMs
+    @Scheduled(initialDelayString = "${importacion.retencion-ms:3600000}", fixedDelayString = "${importacion.retencion-ms:3600000}")
+    public void purgarTerminadas() {
+        long limite = System.currentTimeMillis() - retencionMs;
+        jobs.values().removeIf(estado -> estado.terminadaEn != 0 && estado.terminadaEn < limite);
+    }
+
+    private void procesar(Path fichero, Formato formato, Estado estado) {
+        estado.estado = "EN_CURSO";
+        Set<String> usernamesVistos = new HashSet<>();
+        Set<String> correosVistos = new HashSet<>();
+        try (BufferedReader reader = Files.newBufferedReader(fichero, StandardCharsets.UTF_8)) {
+            List<Fila> bloque = new ArrayList<>(tamanoBloque);
+            String linea;
+            int numero = 0;
+            while ((linea = reader.readLine()) != null) {
+                numero++;
+                if (linea.isBlank() || (numero == 1 && formato == Formato.CSV && esCabecera(linea))) {
+                    continue;
+                }
+                try {
+                    bloque.add(new Fila(numero, parsear(linea, formato)));
+                } catch (RuntimeException e) {
+                    error(estado, numero, "Fila mal formada");
+                    estado.procesadas.incrementAndGet();
+                }
+                if (bloque.size() >= tamanoBloque) {
+                    procesarBloque(bloque, usernamesVistos, correosVistos, estado);
+                    bloque.clear();
+                }
+            }
+            procesarBloque(bloque, usernamesVistos, correosVistos, estado);
+            estado.estado = "COMPLETADA";
+        } catch (Exception e) {
+            estado.estado = "FALLIDA";
+            // El motivo del fallo se guarda aunque ya se haya llegado al máximo de errores
+            estado.error(new ErrorFila(0, "Error al procesar el fichero: " + e.getMessage()), maxErrores + 1);
+        } finally {
+            estado.terminadaEn = System.currentTimeMillis();
+            try {
+                Files.deleteIfExists(fichero);
+            } catch (IOException e) {
+                System.err.println("No se pudo borrar " + fichero + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void procesarBloque(List<Fila> bloque, Set<String> usernamesVistos, Set<String> correosVistos,
+                                Estado estado) throws ExecutionException, InterruptedException {
+        if (bloque.isEmpty()) {
+            return;
+        }
+        List<Fila> validas = new ArrayList<>(bloque.size());
+        for (Fila fila : bloque) {
+            RegisterRequest datos = fila.datos();
+            if (vacio(datos.getUsername()) || vacio(datos.getCorreo()) || vacio(datos.getPassword())) {
+                error(estado, fila.numero(), "username, correo y password son obligatorios");
+            } else if (!usernamesVistos.add(datos.getUsername())) {
+                error(estado, fila.numero(), "Username duplicado en el fichero: " + datos.getUsername());
+            } else if (!correosVistos.add(datos.getCorreo())) {
+                error(estado, fila.numero(), "Correo duplicado en el fichero: " + datos.getCorreo());
+            } else {
+                validas.add(fila);
+            }
+        }
+
+        // Duplicados contra la base de datos: dos consultas por bloque en lugar de una por fila
+        Set<String> usernamesExistentes = new HashSet<>(userRepository.findUsernamesExistentes(
+                validas.stream().map(fila -> fila.datos().getUsername()).toList()));
+        Set<String> correosExistentes = new HashSet<>(userRepository.findCorreosExistentes(
+                validas.stream().map(fila -> fila.datos().getCorreo()).toList()));
+        List<Fila> nuevas = new ArrayList<>(validas.size());
+        for (Fila fila : validas) {
+            if (usernamesExistentes.contains(fila.datos().getUsername())) {
+                error(estado, fila.numero(), "El username ya existe: " + fila.datos().getUsername());
+            } else if (correosExistentes.contains(fila.datos().getCorreo())) {
+                error(estado, fila.numero(), "El correo ya existe: " + fila.datos().getCorreo());
+            } else {
+                nuevas.add(fila);
+            }
+        }
+
+        List<String> hashes = hashingPool.submit(() -> nuevas.parallelStream()
+                .map(fila -> passwordEncoder.encode(fila.datos().getPassword()))
+                .toList()).get();
+
+        List<Object[]> parametros = new ArrayList<>(nuevas.size());
+        for (int i = 0; i < nuevas.size(); i++) {
+            RegisterRequest datos = nuevas.get(i).datos();
+            parametros.add(new Object[]{datos.getCorreo(), datos.getNombre(), datos.getApellido(),
+                    datos.getUsername(), hashes.get(i), Role.USUARIO.name()});
+        }
+        int[] resultados = jdbcTemplate.batchUpdate(INSERT_SQL, parametros);
+        for (int i = 0; i < resultados.length; i++) {
+            if (resultados[i] == 0) {
+                // Otro proceso insertó el mismo username o correo entre la comprobación y el insert
+                error(estado, nuevas.get(i).numero(), "Username o correo ya existente");
+            } else {
+                estado.creadas.incrementAndGet();
+            }
+        }
+        estado.procesadas.addAndGet(bloque.size());
+        versionStamps.bump(VersionStamps.USUARIOS);
+    }
+
+    private void error(Estado estado, int fila, String mensaje) {
+        estado.error(new ErrorFila(fila, mensaje), maxErrores);
+    }
+
+    private RegisterRequest parsear(String linea, Formato formato) throws IOException {
+        if (formato == Formato.NDJSON) {
+            return objectMapper.readValue(linea, RegisterRequest.class);
+        }
+        List<String> campos = parsearCsv(linea);
+        if (campos.size() < 5) {
+            throw new IllegalArgumentException("Faltan columnas");
+        }
+        return RegisterRequest.builder()
+                .correo(campos.get(0))
+                .nombre(campos.get(1))
+                .apellido(campos.get(2))
+                .username(campos.get(3))
+                .password(campos.get(4))
+                .build();
+    }
+
+    // Columnas esperadas: correo,nombre,apellido,username,password (admite campos entre comillas)
+    private static List<String> parsearCsv(String linea) {
+        List<String> campos = new ArrayList<>(5);
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"' && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    actual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreComillas = false;
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                campos.add(actual.toString().trim());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        campos.add(actual.toString().trim());
+        return campos;
+    }
+
+    private static boolean esCabecera(String linea) {
+        return linea.toLowerCase().startsWith("correo");
+    }
+
+    private static boolean vacio(String valor) {
+        return valor == null || valor.isBlank();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        jobExecutor.shutdownNow();
+        hashingPool.shutdownNow();
+    }
+}
@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.example.ProyectoWeb.config.VersionStamps;
 import com.example.ProyectoWeb.entity.InvitadoExterno;
 import com.example.ProyectoWeb.entity.Evento;
 import com.example.ProyectoWeb.repositories.IInvitadoExternoRepository;
@@ -18,6 +19,13 @@ public class InvitadoExternoService {
     @Autowired
     private IInvitadoExternoRepository invitadoExternoRepository;
 
+    // Los listados de eventos activos incluyen el número de invitados externos
+    @Autowired
+    private EventosActivosSnapshot eventosActivos;
+
+    @Autowired
+    private VersionStamps versionStamps;
+
     public InvitadoExterno saveInvitadoExterno(InvitadoExterno invitadoExterno) {
         // Validar que los campos obligatorios estén presentes
         if (invitadoExterno.getNombre() == null || invitadoExterno.getNombre().isEmpty()) {
@@ -40,7 +48,15 @@ public class InvitadoExternoService {
             throw new RuntimeException("Ya existe un invitado con este correo en el evento");
         }
         
-        return invitadoExternoRepository.save(invitadoExterno);
+        InvitadoExterno guardado = invitadoExternoRepository.save(invitadoExterno);
+        registrarCambio(guardado.getEvento().getId());
+        return guardado;
+    }
+
+    // El detalle y los listados de eventos incluyen a sus invitados externos
+    private void registrarCambio(Long eventoId) {
+        eventosActivos.invalidar();
+        versionStamps.bump(VersionStamps.EVENTOS, VersionStamps.evento(eventoId));
     }
 
     public InvitadoExterno getInvitadoExternoById(Long id) {
@@ -78,6 +94,7 @@ public class InvitadoExternoService {
         InvitadoExterno invitadoExterno = invitadoExternoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Invitado externo no encontrado"));
         invitadoExternoRepository.delete(invitadoExterno);
+        registrarCambio(invitadoExterno.getEvento().getId());
         return "Invitado externo eliminado";
     }
 }
@@ -0,0 +1,90 @@
+package com.example.ProyectoWeb.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.ProyectoWeb.config.VersionStamps;
+import com.example.ProyectoWeb.repositories.IEventoRepository;
+
+import java.util.List;
+
+/**
+ * Comprueba que evento.cantidad_participantes coincide con las filas de evento_usuario y
+ * corrige las desviaciones (p. ej. inscripciones escritas a mano en la base de datos).
+ *
+ * Recorre los eventos por lotes ordenados por id. Cada lote se bloquea antes de contar:
+ * las inscripciones reservan plaza bloqueando la fila del evento y las bajas la bloquean
+ * antes de confirmar, así que mientras dura el lote no hay ninguna a medias y el recuento
+ * es coherente con el contador.
+ */
+@Slf4j
+@Component
+public class ReconciliacionParticipantes {
+
+    private final IEventoRepository eventoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final EventosActivosSnapshot eventosActivos;
+    private final VersionStamps versionStamps;
+    private final int tamanoLote;
+    private final Counter corregidos;
+
+    public ReconciliacionParticipantes(IEventoRepository eventoRepository,
+                                       PlatformTransactionManager transactionManager,
+                                       EventosActivosSnapshot eventosActivos,
+                                       VersionStamps versionStamps,
+                                       @Value("${reconciliacion.tamano-lote:500}") int tamanoLote,
+                                       MeterRegistry meterRegistry) {
+        this.eventoRepository = eventoRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventosActivos = eventosActivos;
+        this.versionStamps = versionStamps;
+        this.tamanoLote = tamanoLote;
+        this.corregidos = Counter.builder("eventos.participantes.corregidos")
+                .description("Contadores de participantes corregidos por la reconciliación")
+                .register(meterRegistry);
+    }
+
+    private record Lote(List<Long> ids, int corregidos) {
+    }
+
+    @Scheduled(initialDelayString = "${reconciliacion.intervalo-ms:21600000}", fixedDelayString = "${reconciliacion.intervalo-ms:21600000}")
+    public void reconciliar() {
+        long desdeId = 0;
+        int total = 0;
+        Lote lote;
+        do {
+            lote = reconciliarLote(desdeId);
+            total += lote.corregidos();
+            if (!lote.ids().isEmpty()) {
+                desdeId = lote.ids().get(lote.ids().size() - 1);
+            }
+        } while (lote.ids().size() == tamanoLote);
+
+        if (total > 0) {
+            corregidos.increment(total);
+            log.info("Contadores de participantes corregidos: {}", total);
+        }
+    }
+
+    private Lote reconciliarLote(long desdeId) {
+        return transactionTemplate.execute(status -> {
+            List<Long> ids = eventoRepository.bloquearLote(desdeId, tamanoLote);
+            if (ids.isEmpty()) {
+                return new Lote(ids, 0);
+            }
+            List<Long> desajustados = eventoRepository.findContadorDesajustado(ids);
+            if (!desajustados.isEmpty()) {
+                eventoRepository.corregirContador(desajustados);
+                eventosActivos.invalidar();
+                desajustados.forEach(id -> versionStamps.bump(VersionStamps.EVENTOS, VersionStamps.evento(id)));
+            }
+            return new Lote(ids, desajustados.size());
+        });
+    }
+}
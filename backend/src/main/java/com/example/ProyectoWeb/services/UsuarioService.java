@@ -2,16 +2,24 @@ package com.example.ProyectoWeb.services;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.example.ProyectoWeb.config.PasswordHashingExecutor;
+import com.example.ProyectoWeb.config.SingleFlight;
+import com.example.ProyectoWeb.config.TokenVersionRegistry;
+import com.example.ProyectoWeb.config.VersionStamps;
 import com.example.ProyectoWeb.entity.Evento;
 import com.example.ProyectoWeb.entity.Role; // Añade esta importación
 import com.example.ProyectoWeb.entity.Usuario;
 import com.example.ProyectoWeb.entity.UsuarioInfo;
+import com.example.ProyectoWeb.pagination.Cursor;
+import com.example.ProyectoWeb.pagination.CursorPage;
 import com.example.ProyectoWeb.repositories.IEventoRepository;
 import com.example.ProyectoWeb.repositories.IUsuarioRepository;
 
@@ -26,12 +34,18 @@ public class UsuarioService implements UserDetailsService {
     private IUsuarioRepository userRepository;
     private final IEventoRepository eventoRepository;
     private final PasswordEncoder passwordEncoder;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final VersionStamps versionStamps;
+    private final SingleFlight singleFlight;
 
     public void saveUser(Usuario user) {
         // Encripta la contraseña antes de guardarla
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
+        String rawPassword = user.getPassword();
+        user.setPassword(passwordHashingExecutor.execute(() -> passwordEncoder.encode(rawPassword)));
         // Guarda el usuario en la base de datos
         userRepository.save(user);
+        versionStamps.bump(VersionStamps.USUARIOS, VersionStamps.usuario(user.getId()));
         System.out.println("Usuario guardado con éxito");
     }
 
@@ -41,13 +55,15 @@ public class UsuarioService implements UserDetailsService {
     }
 
     public UsuarioInfo getUserInfoById(Long userId) {
-        Usuario user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-        UsuarioInfo userInfo = new UsuarioInfo();
-        userInfo.setNombre(user.getNombre());
-        userInfo.setApellido(user.getApellido());
-        userInfo.setUsername(user.getUsername());
-        return userInfo;
+        return singleFlight.execute("usuario.info", userId, () -> {
+            Usuario user = userRepository.findById(userId)
+                    .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+            UsuarioInfo userInfo = new UsuarioInfo();
+            userInfo.setNombre(user.getNombre());
+            userInfo.setApellido(user.getApellido());
+            userInfo.setUsername(user.getUsername());
+            return userInfo;
+        });
     }
 
     public Usuario getUserByUsername(String username) {
@@ -55,6 +71,11 @@ public class UsuarioService implements UserDetailsService {
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
     }
 
+    public Long getUserIdByUsername(String username) {
+        return singleFlight.execute("usuario.id", username, () -> userRepository.findIdByUsername(username)
+                .orElseThrow(() -> new RuntimeException("Usuario no encontrado")));
+    }
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         Optional<Usuario> userDetail = userRepository.findByUsername(username);
@@ -81,12 +102,17 @@ public class UsuarioService implements UserDetailsService {
         if (request.getCorreo() != null) user.setCorreo(request.getCorreo());
         
         // Guardar directamente sin pasar por la encriptación de contraseña
-        return userRepository.save(user);
+        Usuario guardado = userRepository.save(user);
+        versionStamps.bump(VersionStamps.USUARIOS, VersionStamps.usuario(userId));
+        return guardado;
     }
+    @Transactional
     public String deleteUser(Long userId) {
         Usuario user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
         userRepository.delete(user);
+        tokenVersionRegistry.invalidate(userId);
+        versionStamps.bump(VersionStamps.USUARIOS, VersionStamps.usuario(userId));
         return "Usuario eliminado";
     }
 
@@ -98,6 +124,16 @@ public class UsuarioService implements UserDetailsService {
         return userRepository.findAll();
     }
 
+    /**
+     * Usuarios paginados por id, excluyendo a uno (normalmente el usuario actual)
+     * @param usernameExcluido Username que no debe aparecer en el listado
+     */
+    public CursorPage<Usuario> getUsuarios(String usernameExcluido, String cursor, int limite) {
+        List<Usuario> filas = userRepository.findByIdGreaterThanAndUsernameNotOrderByIdAsc(
+                Cursor.afterId(cursor), usernameExcluido, Limit.of(limite + 1));
+        return CursorPage.of(filas, limite, usuario -> Cursor.encode(usuario.getId()));
+    }
+
     /**
      * Cambia el rol de un usuario
      * @param userId ID del usuario
@@ -112,7 +148,12 @@ public class UsuarioService implements UserDetailsService {
             // Convertir String a enum Role
             Role rol = Role.valueOf(nuevoRol.toUpperCase());
             usuario.setRol(rol);
-            return userRepository.save(usuario);
+            // Los tokens emitidos con el rol anterior dejan de ser válidos
+            usuario.setTokenVersion(usuario.getTokenVersion() + 1);
+            Usuario actualizado = userRepository.save(usuario);
+            tokenVersionRegistry.update(actualizado);
+            versionStamps.bump(VersionStamps.USUARIOS, VersionStamps.usuario(userId));
+            return actualizado;
         } catch (IllegalArgumentException e) {
             throw new RuntimeException("Rol no válido: " + nuevoRol);
         }
@@ -0,0 +1,5 @@
+-- Eventos terminados fuera de los índices de eventos actuales (ver ArchivadoEventos)
+ALTER TABLE evento ADD COLUMN IF NOT EXISTS archivado BOOLEAN NOT NULL DEFAULT FALSE;
+
+-- Índice parcial de eventos actuales que usan las consultas de activos; el histórico sigue en idx_evento_fecha_id
+CREATE INDEX IF NOT EXISTS idx_evento_actual ON evento (fecha, id) WHERE NOT archivado;
@@ -0,0 +1,16 @@
+-- Índices para las búsquedas por clave ajena que hasta ahora recorrían la tabla entera.
+
+-- HitoService: hitos de un usuario (findByBeneficiarioId, /mis-hitos-ganados)
+CREATE INDEX IF NOT EXISTS idx_hito_usuario ON hito (usuario_id);
+
+-- HitoService: hitos de un evento (findByEventoId). Parcial: la mayoría de hitos no tiene evento
+CREATE INDEX IF NOT EXISTS idx_hito_evento ON hito (evento_id) WHERE evento_id IS NOT NULL;
+
+-- Invitados externos: búsqueda por correo (findByCorreo) y comprobación de duplicados por evento
+CREATE INDEX IF NOT EXISTS idx_invitado_externo_correo_evento ON invitado_externo (correo, evento_id);
+
+-- Invitados de un evento: contadores de los listados, exportación y borrado en cascada del evento
+CREATE INDEX IF NOT EXISTS idx_invitado_externo_evento ON invitado_externo (evento_id);
+
+-- Borrado de usuarios: ON DELETE CASCADE sobre refresh_token
+CREATE INDEX IF NOT EXISTS idx_refresh_token_usuario ON refresh_token (usuario_id);
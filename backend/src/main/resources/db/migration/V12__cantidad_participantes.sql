@@ -0,0 +1,7 @@
+-- El contador de plazas ocupadas pasa a ser el número de participantes persistido del evento,
+-- que leen los listados y el JSON de Evento en lugar de contar evento_usuario.
+ALTER TABLE evento RENAME COLUMN plazas_ocupadas TO cantidad_participantes;
+
+UPDATE evento e SET cantidad_participantes = c.total
+FROM (SELECT ev.id, (SELECT COUNT(*) FROM evento_usuario eu WHERE eu.evento_id = ev.id) AS total FROM evento ev) c
+WHERE c.id = e.id AND e.cantidad_participantes <> c.total;
@@ -0,0 +1,12 @@
+-- Sellos de versión compartidos entre nodos para los ETag y las cachés en memoria.
+-- Cada escritura confirmada sube la fila de cada recurso afectado al siguiente valor de la
+-- secuencia; los nodos leen periódicamente las filas modificadas desde su última lectura.
+CREATE SEQUENCE IF NOT EXISTS version_stamp_seq;
+
+CREATE TABLE IF NOT EXISTS version_stamp (
+    clave      VARCHAR(255) NOT NULL,
+    version    BIGINT       NOT NULL,
+    modificado TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (clave)
+);
+CREATE INDEX IF NOT EXISTS idx_version_stamp_modificado ON version_stamp (modificado);
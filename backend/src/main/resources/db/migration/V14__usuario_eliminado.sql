@@ -0,0 +1,9 @@
+-- Usuarios eliminados cuyos access tokens aún no han expirado. Con autenticación basada en
+-- claims no se consulta la tabla usuario, así que cada nodo carga estas filas al arrancar para
+-- seguir rechazando los tokens del usuario; se borran cuando esos tokens habrían expirado
+CREATE TABLE IF NOT EXISTS usuario_eliminado (
+    usuario_id BIGINT       NOT NULL,
+    expira_en  TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (usuario_id)
+);
+CREATE INDEX IF NOT EXISTS idx_usuario_eliminado_expira_en ON usuario_eliminado (expira_en);
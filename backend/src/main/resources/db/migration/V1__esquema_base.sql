@@ -0,0 +1,68 @@
+-- Esquema de partida, tal como lo creaba Hibernate (ddl-auto=update) antes de las migraciones.
+-- Las bases de datos que ya existían se marcan en esta versión sin ejecutarla
+-- (spring.flyway.baseline-on-migrate) y reciben solo las migraciones siguientes.
+
+CREATE TABLE empresa (
+    id     BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    nombre VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE evento (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    descripcion VARCHAR(500),
+    empresa     VARCHAR(255) NOT NULL,
+    fecha       TIMESTAMP(6),
+    nombre      VARCHAR(255) NOT NULL,
+    tipo        VARCHAR(255) NOT NULL CHECK (tipo IN ('BOOTCAMP','HACKATON','CHARLA','CONCURSO','OTROS')),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE evento_usuario (
+    evento_id  BIGINT NOT NULL,
+    usuario_id BIGINT NOT NULL
+);
+
+CREATE TABLE hito (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    categoria      VARCHAR(255) NOT NULL,
+    descripcion    VARCHAR(500) NOT NULL,
+    fecha_registro DATE,
+    titulo         VARCHAR(255) NOT NULL,
+    usuario_id     BIGINT       NOT NULL,
+    evento_id      BIGINT,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE invitado_externo (
+    id        BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    apellido  VARCHAR(255) NOT NULL,
+    correo    VARCHAR(255) NOT NULL,
+    empresa   VARCHAR(255),
+    nombre    VARCHAR(255) NOT NULL,
+    telefono  VARCHAR(255) NOT NULL,
+    evento_id BIGINT       NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE usuario (
+    id                 BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    apellido           VARCHAR(255),
+    correo_electronico VARCHAR(255) NOT NULL,
+    nombre             VARCHAR(255),
+    password           VARCHAR(255),
+    rol                VARCHAR(255) CHECK (rol IN ('ADMIN','ORGANIZADOR','USUARIO','INVITADO')),
+    username           VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+ALTER TABLE empresa ADD CONSTRAINT UK2fqlxbcs4h827hio1qam0dhd3 UNIQUE (nombre);
+ALTER TABLE evento ADD CONSTRAINT UK3gnb3b0hcjyistt3jew62cx7x UNIQUE (nombre);
+ALTER TABLE usuario ADD CONSTRAINT UKf7w2jekriedf7k6a4kaclt9t7 UNIQUE (correo_electronico);
+ALTER TABLE usuario ADD CONSTRAINT UK863n1y3x0jalatoir4325ehal UNIQUE (username);
+
+ALTER TABLE evento_usuario ADD CONSTRAINT FKohlntngnh1li1fh1ypmaex0be FOREIGN KEY (usuario_id) REFERENCES usuario;
+ALTER TABLE evento_usuario ADD CONSTRAINT FK7ao2e7awkfrcqbo03oupyxn76 FOREIGN KEY (evento_id) REFERENCES evento;
+ALTER TABLE hito ADD CONSTRAINT FKoal2pjmm65v8wxw0ahlq9y82k FOREIGN KEY (usuario_id) REFERENCES usuario;
+ALTER TABLE hito ADD CONSTRAINT FKnagsk6wb7kpiuwln6rjguykf0 FOREIGN KEY (evento_id) REFERENCES evento;
+ALTER TABLE invitado_externo ADD CONSTRAINT FKcddm8gbgl15tbkab456lyww1h FOREIGN KEY (evento_id) REFERENCES evento;
@@ -0,0 +1,3 @@
+-- Versión de los tokens emitidos a cada usuario; al cambiar el rol se incrementa y los anteriores dejan de valer.
+-- IF NOT EXISTS: las bases que ya arrancaron con ddl-auto=update pueden tener ya la columna.
+ALTER TABLE usuario ADD COLUMN IF NOT EXISTS token_version INTEGER NOT NULL DEFAULT 0;
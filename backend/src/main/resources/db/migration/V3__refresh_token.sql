@@ -0,0 +1,13 @@
+-- Refresh tokens rotatorios: solo se guarda el hash; todos los de un mismo login comparten familia
+CREATE TABLE IF NOT EXISTS refresh_token (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    token_hash VARCHAR(64)  NOT NULL,
+    usuario_id BIGINT       NOT NULL REFERENCES usuario (id) ON DELETE CASCADE,
+    familia    VARCHAR(36)  NOT NULL,
+    expira_en  TIMESTAMP(6) NOT NULL,
+    usado      BOOLEAN      NOT NULL,
+    PRIMARY KEY (id),
+    UNIQUE (token_hash)
+);
+CREATE INDEX IF NOT EXISTS idx_refresh_token_familia ON refresh_token (familia);
+CREATE INDEX IF NOT EXISTS idx_refresh_token_expira_en ON refresh_token (expira_en);
@@ -0,0 +1,7 @@
+-- Access tokens revocados por jti; las filas se borran cuando el token habría expirado de todos modos
+CREATE TABLE IF NOT EXISTS token_revocado (
+    jti       VARCHAR(36)  NOT NULL,
+    expira_en TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (jti)
+);
+CREATE INDEX IF NOT EXISTS idx_token_revocado_expira_en ON token_revocado (expira_en);
@@ -0,0 +1,11 @@
+-- evento_usuario necesita clave primaria (evento_id, usuario_id) para las inscripciones directas.
+-- Antes era una lista sin clave, así que primero se eliminan las filas duplicadas.
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint
+                   WHERE conrelid = 'evento_usuario'::regclass AND contype = 'p') THEN
+        DELETE FROM evento_usuario a USING evento_usuario b
+        WHERE a.ctid < b.ctid AND a.evento_id = b.evento_id AND a.usuario_id = b.usuario_id;
+        ALTER TABLE evento_usuario ADD PRIMARY KEY (evento_id, usuario_id);
+    END IF;
+END $$;
@@ -0,0 +1,8 @@
+-- Plazas del evento (null = sin límite) y contador de plazas ocupadas que mantienen las inscripciones
+ALTER TABLE evento ADD COLUMN IF NOT EXISTS capacidad INTEGER;
+ALTER TABLE evento ADD COLUMN IF NOT EXISTS plazas_ocupadas INTEGER NOT NULL DEFAULT 0;
+
+-- Corrige el contador de los eventos que ya tenían inscritos
+UPDATE evento e SET plazas_ocupadas = c.total
+FROM (SELECT evento_id, COUNT(*) AS total FROM evento_usuario GROUP BY evento_id) c
+WHERE c.evento_id = e.id AND e.plazas_ocupadas <> c.total;
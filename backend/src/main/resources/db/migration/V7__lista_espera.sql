@@ -0,0 +1,10 @@
+-- Lista de espera de los eventos completos; el id creciente da el orden de llegada
+CREATE TABLE IF NOT EXISTS lista_espera (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    evento_id       BIGINT       NOT NULL REFERENCES evento (id) ON DELETE CASCADE,
+    usuario_id      BIGINT       NOT NULL REFERENCES usuario (id) ON DELETE CASCADE,
+    fecha_solicitud TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_lista_espera_evento_usuario UNIQUE (evento_id, usuario_id)
+);
+CREATE INDEX IF NOT EXISTS idx_lista_espera_evento_orden ON lista_espera (evento_id, id);
@@ -0,0 +1,3 @@
+-- Eventos de un usuario (join por usuario_id) y orden keyset por (fecha, id)
+CREATE INDEX IF NOT EXISTS idx_evento_usuario_usuario ON evento_usuario (usuario_id, evento_id);
+CREATE INDEX IF NOT EXISTS idx_evento_fecha_id ON evento (fecha, id);
@@ -0,0 +1,4 @@
+-- Contadores de cambios para bloqueo optimista de Evento, Hito y Usuario
+ALTER TABLE evento ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE hito ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE usuario ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -1,10 +1,10 @@
-package com.example.parcialFashionEvent;
+package com.example.ProyectoWeb;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
 @SpringBootTest
-class ParcialFashionEventApplicationTests {
+class IngenieriaWebEventApplicationTests {
 
 	@Test
 	void contextLoads() {
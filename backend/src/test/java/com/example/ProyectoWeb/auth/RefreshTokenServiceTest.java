@@ -0,0 +1,85 @@
+package com.example.ProyectoWeb.auth;
+
+import com.example.ProyectoWeb.entity.RefreshToken;
+import com.example.ProyectoWeb.entity.Usuario;
+import com.example.ProyectoWeb.repositories.IRefreshTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RefreshTokenServiceTest {
+
+    // Tabla refresh_token simulada sobre una lista
+    private final List<RefreshToken> filas = new ArrayList<>();
+    private final IRefreshTokenRepository repository = mock(IRefreshTokenRepository.class);
+    private final RefreshTokenService service = new RefreshTokenService(repository);
+    private final Usuario usuario = new Usuario();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "refreshTokenTtlMs", 60_000L);
+        usuario.setUsername("ana");
+
+        when(repository.save(any(RefreshToken.class))).thenAnswer(invocation -> {
+            RefreshToken fila = invocation.getArgument(0);
+            fila.setId((long) filas.size() + 1);
+            filas.add(fila);
+            return fila;
+        });
+        when(repository.findByTokenHashConUsuario(anyString())).thenAnswer(invocation -> filas.stream()
+                .filter(fila -> fila.getTokenHash().equals(invocation.getArgument(0)))
+                .findFirst());
+        when(repository.marcarUsado(anyLong())).thenAnswer(invocation -> {
+            for (RefreshToken fila : filas) {
+                if (fila.getId().equals(invocation.getArgument(0)) && !fila.isUsado()) {
+                    fila.setUsado(true);
+                    return 1;
+                }
+            }
+            return 0;
+        });
+        when(repository.deleteByFamilia(anyString())).thenAnswer(invocation -> {
+            int antes = filas.size();
+            filas.removeIf(fila -> fila.getFamilia().equals(invocation.getArgument(0)));
+            return antes - filas.size();
+        });
+    }
+
+    @Test
+    void cadaRotacionEmiteElSiguienteTokenDeLaFamilia() {
+        String primero = service.crear(usuario);
+
+        Optional<RefreshTokenService.Rotacion> rotacion = service.rotar(primero);
+
+        assertTrue(rotacion.isPresent());
+        assertEquals(2, filas.size());
+        assertEquals(filas.get(0).getFamilia(), filas.get(1).getFamilia());
+        assertTrue(service.rotar(rotacion.get().refreshToken()).isPresent());
+    }
+
+    @Test
+    void reutilizarUnTokenRevocaTodaLaFamilia() {
+        String otraSesion = service.crear(usuario);
+        String primero = service.crear(usuario);
+        String segundo = service.rotar(primero).orElseThrow().refreshToken();
+
+        // El token ya rotado vuelve a presentarse: se asume robado
+        assertTrue(service.rotar(primero).isEmpty());
+
+        // El último token legítimo de la familia también deja de valer; otras sesiones siguen
+        assertTrue(service.rotar(segundo).isEmpty());
+        assertTrue(service.rotar(otraSesion).isPresent());
+    }
+}
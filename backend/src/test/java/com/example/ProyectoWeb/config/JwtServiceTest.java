@@ -0,0 +1,56 @@
+package com.example.ProyectoWeb.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.PrematureJwtException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JwtServiceTest {
+
+    private static final String SECRETO = "5367566B59703373367639792F423F4528482B4D6251655468576D5A71347437";
+
+    private final JwtKeyRing keyRing = new JwtKeyRing("k1:" + SECRETO, "k1");
+    private final JwtService jwtService = new JwtService(keyRing, new VerifiedTokenCache(100), new ObjectMapper());
+
+    private final long exp = System.currentTimeMillis() / 1000 + 600;
+
+    private String firmar(String header, String payload) {
+        Base64.Encoder base64 = Base64.getUrlEncoder().withoutPadding();
+        String contenido = base64.encodeToString(header.getBytes(StandardCharsets.UTF_8)) + "."
+                + base64.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return contenido + "." + base64.encodeToString(keyRing.active().sign(contenido.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    void aceptaUnTokenBienFormado() {
+        JwtClaims claims = jwtService.verify(firmar("{\"alg\":\"HS256\",\"kid\":\"k1\"}",
+                "{\"sub\":\"ana\",\"jti\":\"j1\",\"id\":7,\"role\":\"admin\",\"tv\":2,\"exp\":" + exp + "}"));
+
+        assertEquals("ana", claims.username());
+        assertEquals(7L, claims.id());
+    }
+
+    @Test
+    void rechazaCamposConTipoIncorrecto() {
+        assertThrows(MalformedJwtException.class, () -> jwtService.verify(
+                firmar("{\"alg\":\"HS256\",\"kid\":1}", "{\"sub\":\"ana\",\"exp\":" + exp + "}")));
+        assertThrows(MalformedJwtException.class, () -> jwtService.verify(
+                firmar("{\"alg\":\"HS256\",\"kid\":\"k1\"}", "{\"sub\":[\"ana\"],\"exp\":" + exp + "}")));
+        assertThrows(MalformedJwtException.class, () -> jwtService.verify(
+                firmar("{\"alg\":\"HS256\",\"kid\":\"k1\"}", "{\"sub\":\"ana\",\"role\":{},\"exp\":" + exp + "}")));
+        assertThrows(MalformedJwtException.class, () -> jwtService.verify(
+                firmar("{\"alg\":\"HS256\",\"kid\":\"k1\"}", "{\"sub\":\"ana\",\"exp\":\"" + exp + "\"}")));
+    }
+
+    @Test
+    void rechazaUnTokenAntesDeNbf() {
+        assertThrows(PrematureJwtException.class, () -> jwtService.verify(
+                firmar("{\"alg\":\"HS256\",\"kid\":\"k1\"}", "{\"sub\":\"ana\",\"nbf\":" + exp + ",\"exp\":" + (exp + 60) + "}")));
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.ProyectoWeb.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight singleFlight = new SingleFlight(meterRegistry);
+
+    @Test
+    void lasLlamadasConcurrentesCompartenElErrorDeLaConsulta() throws Exception {
+        IllegalStateException fallo = new IllegalStateException("sin conexión");
+        CountDownLatch enCurso = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        AtomicInteger consultas = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> primera = executor.submit(() -> singleFlight.execute("eventos", 1, () -> {
+                consultas.incrementAndGet();
+                enCurso.countDown();
+                await(liberar);
+                throw fallo;
+            }));
+            assertTrue(enCurso.await(5, TimeUnit.SECONDS));
+            Future<?> segunda = executor.submit(() -> singleFlight.execute("eventos", 1, () -> {
+                consultas.incrementAndGet();
+                return "no debería ejecutarse";
+            }));
+            // La segunda llamada ya espera a la primera cuando cuenta como agrupada
+            while (meterRegistry.counter("singleflight.merged", "name", "eventos").count() < 1) {
+                Thread.sleep(5);
+            }
+            liberar.countDown();
+
+            assertSame(fallo, causa(primera));
+            assertSame(fallo, causa(segunda));
+            assertEquals(1, consultas.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void unErrorNoQuedaGuardadoParaLaSiguienteLlamada() {
+        assertThrows(IllegalStateException.class, () -> singleFlight.execute("eventos", 1, () -> {
+            throw new IllegalStateException("sin conexión");
+        }));
+
+        assertEquals("ok", singleFlight.execute("eventos", 1, () -> "ok"));
+    }
+
+    private static Throwable causa(Future<?> future) {
+        Exception e = assertThrows(Exception.class, () -> future.get(5, TimeUnit.SECONDS));
+        return e.getCause();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.ProyectoWeb.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class VerifiedTokenCacheTest {
+
+    private final VerifiedTokenCache cache = new VerifiedTokenCache(2);
+    private final long exp = System.currentTimeMillis() + 600_000;
+
+    private JwtClaims claims(String jti) {
+        return new JwtClaims(jti, "ana", 7L, "admin", 1, exp);
+    }
+
+    @Test
+    void llenaDeTokensVigentesDescartaElMasAntiguo() {
+        cache.put("t1", claims("j1"));
+        cache.put("t2", claims("j2"));
+        cache.put("t3", claims("j3"));
+
+        assertNull(cache.get("t1"));
+        assertEquals("j2", cache.get("t2").jti());
+        assertEquals("j3", cache.get("t3").jti());
+    }
+
+    @Test
+    void noDevuelveTokensCaducados() {
+        cache.put("t1", new JwtClaims("j1", "ana", 7L, "admin", 1, System.currentTimeMillis() - 1));
+
+        assertNull(cache.get("t1"));
+    }
+}
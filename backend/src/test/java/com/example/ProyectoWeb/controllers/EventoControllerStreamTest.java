@@ -0,0 +1,87 @@
+package com.example.ProyectoWeb.controllers;
+
+import com.example.ProyectoWeb.entity.EventoResumen;
+import com.example.ProyectoWeb.services.EventosActivosSnapshot;
+import com.example.ProyectoWeb.services.EventosStream;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class EventoControllerStreamTest {
+
+    private final EventosActivosSnapshot snapshot = mock(EventosActivosSnapshot.class);
+    private EventosStream stream;
+
+    private MockMvc mockMvc(int maxConexiones) {
+        stream = new EventosStream(snapshot, new ObjectMapper(), 60000, maxConexiones, 30000, 15000, 1, 500,
+                new SimpleMeterRegistry());
+        EventoController controller = new EventoController();
+        ReflectionTestUtils.setField(controller, "eventosStream", stream);
+        return MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @AfterEach
+    void cerrar() {
+        ReflectionTestUtils.invokeMethod(stream, "cerrar");
+    }
+
+    @Test
+    void abreUnaConexionAsincronaYEnviaSnapshotYDeltas() throws Exception {
+        MockMvc mockMvc = mockMvc(10);
+        EventosActivosSnapshot.Foto inicial = new EventosActivosSnapshot.Foto(List.of(evento(1L, 3)), 3, new Date());
+        EventosActivosSnapshot.Foto cambiada = new EventosActivosSnapshot.Foto(List.of(evento(1L, 4)), 4, new Date());
+        when(snapshot.get()).thenReturn(inicial);
+
+        MvcResult result = mockMvc.perform(get("/api/v1/eventos/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        stream.publicar();
+        esperarContenido(result, "event:snapshot");
+
+        when(snapshot.get()).thenReturn(cambiada);
+        stream.publicar();
+        esperarContenido(result, "event:delta");
+        assertTrue(result.getResponse().getContentAsString().contains("\"totalParticipantes\":4"));
+    }
+
+    @Test
+    void respondeServiceUnavailableSiNoQuedanConexiones() throws Exception {
+        mockMvc(0).perform(get("/api/v1/eventos/stream"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    private static EventoResumen evento(Long id, long participantes) {
+        EventoResumen evento = new EventoResumen();
+        evento.setId(id);
+        evento.setNombre("Evento " + id);
+        evento.setCantidadParticipantes(participantes);
+        return evento;
+    }
+
+    // Los envíos los hace el pool del stream, no el hilo del test
+    private static void esperarContenido(MvcResult result, String texto) throws Exception {
+        long limite = System.currentTimeMillis() + 5000;
+        while (!result.getResponse().getContentAsString().contains(texto)) {
+            if (System.currentTimeMillis() > limite) {
+                throw new AssertionError("No se recibió " + texto + ": " + result.getResponse().getContentAsString());
+            }
+            Thread.sleep(20);
+        }
+    }
+}
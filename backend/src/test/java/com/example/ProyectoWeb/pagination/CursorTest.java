@@ -0,0 +1,54 @@
+package com.example.ProyectoWeb.pagination;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CursorTest {
+
+    @Test
+    void codificaYDecodificaLaPosicion() {
+        Date fecha = new Date(1_767_225_600_123L);
+
+        assertEquals(new Cursor.FechaId(fecha, 42), Cursor.afterFechaId(Cursor.encode(fecha, 42L)));
+        assertEquals(42, Cursor.afterId(Cursor.encode(42L)));
+    }
+
+    @Test
+    void elUltimoCampoPuedeContenerElSeparador() {
+        String cursor = Cursor.encode("Pérez", "Ana|María", 7L);
+
+        assertArrayEquals(new String[]{"Pérez", "Ana|María|7"}, Cursor.decode(cursor, 2));
+        assertArrayEquals(new String[]{"Pérez", "Ana", "María|7"}, Cursor.decode(cursor, 3));
+    }
+
+    @Test
+    void sinCursorEmpiezaDesdeElPrincipio() {
+        assertEquals(0, Cursor.afterId(null));
+        assertEquals(new Cursor.FechaId(Cursor.FECHA_MIN, 0), Cursor.afterFechaId(""));
+    }
+
+    @Test
+    void rechazaCursoresManipulados() {
+        assertThrows(RuntimeException.class, () -> Cursor.afterId("no es base64!"));
+        assertThrows(RuntimeException.class, () -> Cursor.afterId(Cursor.encode("abc")));
+        assertThrows(RuntimeException.class, () -> Cursor.afterFechaId(Cursor.encode(42L)));
+    }
+
+    @Test
+    void laPaginaSoloTieneCursorSiLlegoLaFilaExtra() {
+        CursorPage<Long> ultima = CursorPage.of(List.of(1L, 2L), 2, id -> Cursor.encode(id));
+        assertEquals(List.of(1L, 2L), ultima.items());
+        assertNull(ultima.nextCursor());
+
+        CursorPage<Long> intermedia = CursorPage.of(List.of(1L, 2L, 3L), 2, id -> Cursor.encode(id));
+        assertEquals(List.of(1L, 2L), intermedia.items());
+        assertEquals(2, Cursor.afterId(intermedia.nextCursor()));
+    }
+}
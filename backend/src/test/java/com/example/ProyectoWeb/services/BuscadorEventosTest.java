@@ -0,0 +1,107 @@
+package com.example.ProyectoWeb.services;
+
+import com.example.ProyectoWeb.config.VersionStamps;
+import com.example.ProyectoWeb.entity.Evento;
+import com.example.ProyectoWeb.entity.TipoEvento;
+import com.example.ProyectoWeb.repositories.IEventoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BuscadorEventosTest {
+
+    private final IEventoRepository eventoRepository = mock(IEventoRepository.class);
+    private final BuscadorEventos buscador = new BuscadorEventos(eventoRepository, mock(VersionStamps.class));
+
+    private static Object[] fila(long id, String nombre, TipoEvento tipo, String empresa, String descripcion) {
+        return new Object[]{id, nombre, tipo, new Date(), empresa, descripcion};
+    }
+
+    private static Evento evento(long id, String nombre) {
+        Evento evento = new Evento();
+        evento.setId(id);
+        evento.setNombre(nombre);
+        evento.setTipo(TipoEvento.CHARLA);
+        evento.setEmpresa("Acme");
+        evento.setFecha(new Date());
+        return evento;
+    }
+
+    private static List<Long> ids(List<BuscadorEventos.Resultado> resultados) {
+        return resultados.stream().map(BuscadorEventos.Resultado::id).toList();
+    }
+
+    private void conFilas(Object[]... filas) {
+        List<Object[]> lote = new ArrayList<>(List.of(filas));
+        when(eventoRepository.findTextoKeyset(anyLong(), any(Limit.class))).thenReturn(lote);
+        buscador.reconstruir();
+    }
+
+    @Test
+    void ordenaPorElCampoDondeApareceElTermino() {
+        conFilas(
+                fila(1, "Taller de diseño", TipoEvento.CHARLA, "Acme", "Incluye una sesión de robótica"),
+                fila(2, "Robótica para todos", TipoEvento.CHARLA, "Acme", "Montaje de kits"),
+                fila(3, "Feria de empleo", TipoEvento.OTROS, "Robótica SL", "Stands"));
+
+        assertEquals(List.of(2L, 3L, 1L), ids(buscador.buscar("robotica", null, null, null)));
+    }
+
+    @Test
+    void exigeTodosLosTerminosYElUltimoCasaComoPrefijo() {
+        conFilas(
+                fila(1, "Hackatón de IA", TipoEvento.HACKATON, "Acme", null),
+                fila(2, "Hackatón de datos", TipoEvento.HACKATON, "Acme", null),
+                fila(3, "Charla de IA", TipoEvento.CHARLA, "Acme", null));
+
+        assertEquals(List.of(1L, 2L), ids(buscador.buscar("Hack", null, null, null)));
+        assertEquals(List.of(1L), ids(buscador.buscar("hackaton ia", null, null, null)));
+        assertEquals(List.of(2L), ids(buscador.buscar("hackaton dat", null, null, null)));
+        assertEquals(List.of(3L), ids(buscador.buscar("ia", TipoEvento.CHARLA, null, null)));
+        assertTrue(buscador.buscar("hack inexistente", null, null, null).isEmpty());
+    }
+
+    @Test
+    void laReconstruccionConservaLosCambiosHechosMientrasCarga() {
+        conFilas(fila(1, "Charla inicial", TipoEvento.CHARLA, "Acme", null));
+
+        // Un alta y una baja confirmadas mientras se leen los lotes de la base de datos
+        List<Object[]> lote = new ArrayList<>();
+        lote.add(fila(1, "Charla inicial", TipoEvento.CHARLA, "Acme", null));
+        when(eventoRepository.findTextoKeyset(anyLong(), any(Limit.class))).thenAnswer(invocation -> {
+            buscador.indexar(evento(2, "Charla nueva"));
+            buscador.eliminar(1L);
+            return lote;
+        });
+        buscador.reconstruir();
+
+        assertEquals(List.of(2L), ids(buscador.buscar("charla", null, null, null)));
+    }
+
+    @Test
+    void reindexaLosEventosCambiadosEnOtroNodo() {
+        conFilas(
+                fila(1, "Charla de robótica", TipoEvento.CHARLA, "Acme", null),
+                fila(2, "Charla de diseño", TipoEvento.CHARLA, "Acme", null));
+
+        // Otro nodo renombra el 1 y borra el 2; el 2 ya no vuelve de la base de datos
+        List<Object[]> cambiados = new ArrayList<>();
+        cambiados.add(fila(1, "Taller de robótica", TipoEvento.BOOTCAMP, "Acme", null));
+        when(eventoRepository.findTextoByIds(any())).thenReturn(cambiados);
+        buscador.sincronizar(Set.of(VersionStamps.EVENTOS, VersionStamps.evento(1L), VersionStamps.evento(2L)));
+
+        assertTrue(buscador.buscar("charla", null, null, null).isEmpty());
+        assertEquals(List.of(1L), ids(buscador.buscar("taller", null, null, null)));
+    }
+}
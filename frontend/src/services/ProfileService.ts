@@ -1,5 +1,5 @@
 import { API_URL } from '../main';
-import { getToken } from './authService';
+import { getToken, fetchConAuth } from './authService';
 
 const getAuthHeaders = () => ({
     Authorization: `Bearer ${getToken()}`,
@@ -59,7 +59,7 @@ export const updateUserProfile = async (profileData: {
     throw new Error('No hay sesión de usuario activa');
   }
   
-  const response = await fetch(`${API_URL}/api/v1/usuario/perfil/Editar`, {
+  const response = await fetchConAuth(`${API_URL}/api/v1/usuario/perfil/Editar`, {
     method: 'PUT',
     headers: {
       ...getAuthHeaders(),
@@ -92,7 +92,7 @@ export const updateUserProfile = async (profileData: {
  * @returns Promise<void>
  */
 export const deleteUserAccount = async (): Promise<void> => {
-  const response = await fetch(`${API_URL}/api/v1/usuario/perfil/Eliminar`, {
+  const response = await fetchConAuth(`${API_URL}/api/v1/usuario/perfil/Eliminar`, {
     method: 'DELETE',
     headers: getAuthHeaders(),
   });
@@ -112,7 +112,7 @@ export const deleteUserAccount = async (): Promise<void> => {
  * @returns Promise con los datos de perfil actualizados
  */
 export const fetchUserProfile = async (): Promise<UserProfileData> => {
-  const response = await fetch(`${API_URL}/api/v1/usuario/perfil`, {
+  const response = await fetchConAuth(`${API_URL}/api/v1/usuario/perfil`, {
     headers: getAuthHeaders(),
   });
   
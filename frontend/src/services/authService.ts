@@ -11,6 +11,7 @@ export interface UserData {
 }
 
 const TOKEN_KEY = 'authToken';
+const REFRESH_TOKEN_KEY = 'refreshToken';
 const USER_DATA_KEY = 'userData';
 
 export const setAuthToken = (token: string): void => {
@@ -67,9 +68,74 @@ export const setAuthData = (token: string, userData: any): void => {
 // Función para eliminar el token y los datos del usuario de localStorage (cerrar sesión)
 export const clearAuthData = (): void => {
   localStorage.removeItem(TOKEN_KEY);
+  localStorage.removeItem(REFRESH_TOKEN_KEY);
   localStorage.removeItem(USER_DATA_KEY);
 };
 
+// Renovación en curso: las peticiones que reciben 401 a la vez comparten una sola llamada a /auth/refresh
+let renovacionEnCurso: Promise<string | null> | null = null;
+
+/**
+ * Renueva el access token con el refresh token guardado, que también rota.
+ * @returns Promise con el nuevo access token, o null si la sesión ya no es válida
+ */
+export const renovarSesion = (): Promise<string | null> => {
+  if (!renovacionEnCurso) {
+    renovacionEnCurso = (async () => {
+      const refreshToken = localStorage.getItem(REFRESH_TOKEN_KEY);
+      if (!refreshToken) {
+        return null;
+      }
+      try {
+        const response = await fetch(`${API_URL}/auth/refresh`, {
+          method: 'POST',
+          headers: {
+            'Content-Type': 'application/json',
+          },
+          body: JSON.stringify({ refreshToken }),
+        });
+        if (!response.ok) {
+          // Refresh token caducado, revocado o reutilizado: hay que volver a iniciar sesión
+          clearAuthData();
+          return null;
+        }
+        const data = await response.json();
+        localStorage.setItem(TOKEN_KEY, data.token);
+        localStorage.setItem(REFRESH_TOKEN_KEY, data.refreshToken);
+        return data.token as string;
+      } catch (e) {
+        // Error de red: se conserva la sesión para reintentarlo más tarde
+        console.error("Error renovando la sesión", e);
+        return null;
+      } finally {
+        renovacionEnCurso = null;
+      }
+    })();
+  }
+  return renovacionEnCurso;
+};
+
+/**
+ * fetch para las peticiones autenticadas: si el backend responde 401 (access token caducado)
+ * renueva la sesión una vez y repite la petición con el nuevo token.
+ * @param input URL de la petición
+ * @param init Opciones de fetch, con la cabecera Authorization del token actual
+ * @returns Promise con la respuesta (la original si no se pudo renovar)
+ */
+export const fetchConAuth = async (input: string, init: RequestInit = {}): Promise<Response> => {
+  const response = await fetch(input, init);
+  if (response.status !== 401 || !localStorage.getItem(REFRESH_TOKEN_KEY)) {
+    return response;
+  }
+  const token = await renovarSesion();
+  if (!token) {
+    return response;
+  }
+  const headers = new Headers(init.headers);
+  headers.set('Authorization', `Bearer ${token}`);
+  return fetch(input, { ...init, headers });
+};
+
 // Función para verificar si el usuario está autenticado
 export const isAuthenticated = (): boolean => {
   return !!getToken() && !!getUserData(); // Asegurarse de que ambos existan
@@ -114,7 +180,7 @@ export const login = async (usernameInput: string, passwordInput: string): Promi
     throw new Error(errorData.message || 'Credenciales incorrectas');
   }
 
-  const { token } = await response.json();
+  const { token, refreshToken } = await response.json();
   
   // Decodifica el token para extraer datos
   const decoded = jwtDecode<JwtPayload>(token);
@@ -126,6 +192,9 @@ export const login = async (usernameInput: string, passwordInput: string): Promi
 
   // Almacena el token y los datos mínimos necesarios
   setAuthData(token, { id, username, role });
+  if (refreshToken) {
+    localStorage.setItem(REFRESH_TOKEN_KEY, refreshToken);
+  }
   
   return { id, username, role };
 };
@@ -211,7 +280,7 @@ export const register = async (correo: string, nombre: string, apellido: string,
  * @throws Error Si la actualización falla.
  */
 export const updateUserProfile = async (userData: any): Promise<UserData> => {
-  const response = await fetch(`${API_URL}/api/v1/usuarios/perfil`, {
+  const response = await fetchConAuth(`${API_URL}/api/v1/usuarios/perfil`, {
     method: 'PUT',
     headers: {
       ...getAuthHeaders(),
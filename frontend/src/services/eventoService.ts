@@ -2,7 +2,9 @@
 
 import { API_URL } from '../main';
 
-import { getToken } from './authService';
+import { getToken, fetchConAuth } from './authService';
+
+import { fetchTodasLasPaginas } from './paginacion';
 
 
 
@@ -82,10 +84,6 @@ export interface ParticipanteEvento {
 
  apellido: string;
 
- correo: string;
-
- role: string;
-
 }
 
 
@@ -118,53 +116,25 @@ const getAuthHeaders = () => {
 
 export const getEventStats = async (): Promise<{ eventosActivos: number; totalParticipantes: number; proximoEvento: string }> => {
   try {
-    // 1. Obtener eventos activos
+    // Todas las cifras del panel llegan en una sola llamada
     let eventosActivos = 0;
-    try {
-      const countResponse = await fetch(`${API_URL}/api/v1/eventos/activos/count`, { 
-        headers: getAuthHeaders() 
-      });
-      
-      if (countResponse.ok) {
-        eventosActivos = await countResponse.json();
-      } else {
-        console.error('Error al obtener cantidad de eventos activos:', await countResponse.text());
-      }
-    } catch (error) {
-      console.error('Error en fetch eventos activos:', error);
-    }
-    
-    // 2. Obtener participantes
     let totalParticipantes = 0;
-    try {
-      const totalParticipantesResponse = await fetch(`${API_URL}/api/v1/eventos/activos/total-participantes`, { 
-        headers: getAuthHeaders() 
-      });
-      
-      if (totalParticipantesResponse.ok) {
-        totalParticipantes = await totalParticipantesResponse.json();
-      } else {
-        console.error('Error al obtener participantes:', await totalParticipantesResponse.text());
-      }
-    } catch (error) {
-      console.error('Error en fetch participantes:', error);
-    }
-    
-    // 3. Obtener próximo evento
     let proximoEvento = 'Sin eventos próximos';
     try {
-      const proximoResponse = await fetch(`${API_URL}/api/v1/eventos/proximo`, { 
+      const dashboardResponse = await fetchConAuth(`${API_URL}/api/v1/eventos/dashboard`, { 
         headers: getAuthHeaders() 
       });
       
-      if (proximoResponse.ok) {
-        const eventoData = await proximoResponse.json();
-        proximoEvento = eventoData?.nombre || 'Sin eventos próximos';
+      if (dashboardResponse.ok) {
+        const dashboard = await dashboardResponse.json();
+        eventosActivos = dashboard?.eventosActivos ?? 0;
+        totalParticipantes = dashboard?.totalParticipantes ?? 0;
+        proximoEvento = dashboard?.proximo?.nombre || 'Sin eventos próximos';
       } else {
-        console.error('Error al obtener próximo evento:', await proximoResponse.text());
+        console.error('Error al obtener el panel de eventos:', await dashboardResponse.text());
       }
     } catch (error) {
-      console.error('Error en fetch próximo evento:', error);
+      console.error('Error en fetch panel de eventos:', error);
     }
 
     return {
@@ -192,7 +162,7 @@ export const getEventStats = async (): Promise<{ eventosActivos: number; totalPa
 
 export const getRecentEvents = async (limit: number = 3): Promise<Evento[]> => {
 
- const response = await fetch(`${API_URL}/api/v1/eventos/activos3?limit=${limit}`, {
+ const response = await fetchConAuth(`${API_URL}/api/v1/eventos/activos3?limit=${limit}`, {
 
   headers: getAuthHeaders(),
 
@@ -222,21 +192,17 @@ export const getRecentEvents = async (limit: number = 3): Promise<Evento[]> => {
 
 export const getEventos = async (): Promise<Evento[]> => {
 
- const response = await fetch(`${API_URL}/api/v1/eventos/activos`, {
+ return fetchTodasLasPaginas<Evento>(`${API_URL}/api/v1/eventos/activos`, {
 
   headers: getAuthHeaders(),
 
- });
-
- if (!response.ok) {
+ }, async (response) => {
 
   const errorData = await response.json();
 
-  throw new Error(errorData.message || 'Error al cargar todos los eventos');
-
- }
+  return new Error(errorData.message || 'Error al cargar todos los eventos');
 
- return response.json();
+ });
 
 };
 
@@ -254,7 +220,7 @@ export const getEventos = async (): Promise<Evento[]> => {
 
 export const getEventoById = async (id: number): Promise<Evento> => {
 
- const response = await fetch(`${API_URL}/api/v1/eventos/${id}`, {
+ const response = await fetchConAuth(`${API_URL}/api/v1/eventos/${id}`, {
 
   headers: getAuthHeaders(),
 
@@ -318,7 +284,7 @@ export const createEvent = async (newEvent: Omit<Evento, 'id'>): Promise<Evento>
 
 
 
- const response = await fetch(`${API_URL}/api/v1/eventos/nuevo-evento`, {
+ const response = await fetchConAuth(`${API_URL}/api/v1/eventos/nuevo-evento`, {
 
   method: 'POST',
 
@@ -375,7 +341,7 @@ export const updateEvent = async (updatedEvent: Evento): Promise<Evento> => {
     empresa: updatedEvent.empresa
   };
 
-  const response = await fetch(`${API_URL}/api/v1/eventos/${updatedEvent.id}/modificar-evento`, {
+  const response = await fetchConAuth(`${API_URL}/api/v1/eventos/${updatedEvent.id}/modificar-evento`, {
     method: 'PUT',
     headers: getAuthHeaders(),
     body: JSON.stringify(eventToUpdate),
@@ -403,7 +369,7 @@ export const updateEvent = async (updatedEvent: Evento): Promise<Evento> => {
 
 export const registerUserToEvent = async (eventId: number): Promise<void> => {
 
- const response = await fetch(`${API_URL}/api/v1/eventos/${eventId}/inscribirse`, {
+ const response = await fetchConAuth(`${API_URL}/api/v1/eventos/${eventId}/inscribirse`, {
 
   method: 'PUT',
 
@@ -427,7 +393,7 @@ export const registerUserToEvent = async (eventId: number): Promise<void> => {
 
 export const unregisterUserFromEvent = async (eventId: number): Promise<void> => {
 
- const response = await fetch(`${API_URL}/api/v1/eventos/${eventId}/eliminar-participante`, {
+ const response = await fetchConAuth(`${API_URL}/api/v1/eventos/${eventId}/eliminar-participante`, {
 
   method: 'DELETE',
 
@@ -463,23 +429,17 @@ export const getRegisteredEventsForCurrentUser = async (): Promise<Evento[]> =>
 
  // Cambia a la ruta correcta de tu backend:
 
- const response = await fetch(`${API_URL}/api/v1/eventos/mis-eventos`, {
+ return fetchTodasLasPaginas<Evento>(`${API_URL}/api/v1/eventos/mis-eventos`, {
 
   headers: getAuthHeaders(),
 
- });
-
-
-
- if (!response.ok) {
+ }, async (response) => {
 
   const errorData = await response.json();
 
-  throw new Error(errorData.message || 'Error al cargar tus eventos registrados.');
+  return new Error(errorData.message || 'Error al cargar tus eventos registrados.');
 
- }
-
- return response.json();
+ });
 
 };
 
@@ -495,7 +455,7 @@ export const getRegisteredEventsForCurrentUser = async (): Promise<Evento[]> =>
 
 export const generateEventsReportCsv = async (): Promise<string> => {
 
- const response = await fetch(`${API_URL}/api/reports/events-participants-csv`, {
+ const response = await fetchConAuth(`${API_URL}/api/reports/events-participants-csv`, {
 
   headers: getAuthHeaders(),
 
@@ -520,22 +480,18 @@ export const generateEventsReportCsv = async (): Promise<string> => {
  * @returns Promise con array de objetos ParticipanteEvento
  */
 export const getParticipantesByEventoId = async (eventoId: number): Promise<ParticipanteEvento[]> => {
-  const response = await fetch(`${API_URL}/api/v1/eventos/${eventoId}/participantes`, {
+  return fetchTodasLasPaginas<ParticipanteEvento>(`${API_URL}/api/v1/eventos/${eventoId}/participantes`, {
     headers: {
       'Content-Type': 'application/json',
       Authorization: `Bearer ${getToken()}`,
     },
-  });
-
-  if (!response.ok) {
+  }, async (response) => {
 
     const errorData = await response.json().catch(() => ({}));
 
-    throw new Error(errorData.message || `Error al obtener participantes del evento ${eventoId}`);
-
-  }
+    return new Error(errorData.message || `Error al obtener participantes del evento ${eventoId}`);
 
-  return response.json();
+  });
 
 };
 
@@ -567,7 +523,7 @@ export const addExternalGuest = async (eventoId: number, invitadoData: {
 
 }): Promise<any> => {
 
-  const response = await fetch(`${API_URL}/api/v1/eventos/${eventoId}/invitados-externos`, {
+  const response = await fetchConAuth(`${API_URL}/api/v1/eventos/${eventoId}/invitados-externos`, {
 
     method: 'POST',
 
@@ -616,7 +572,7 @@ export const addExternalGuest = async (eventoId: number, invitadoData: {
  */
 
 export const deleteEvento = async (id: number): Promise<void> => {
-  const response = await fetch(`${API_URL}/api/v1/eventos/${id}/eliminar-evento`, {
+  const response = await fetchConAuth(`${API_URL}/api/v1/eventos/${id}/eliminar-evento`, {
     method: 'DELETE',
     headers: getAuthHeaders(),
   });
@@ -645,24 +601,16 @@ export const deleteEvento = async (id: number): Promise<void> => {
 
 export const getEventosHistorico = async (): Promise<Evento[]> => {
 
-  const response = await fetch(`${API_URL}/api/v1/eventos/historico`, {
+  return fetchTodasLasPaginas<Evento>(`${API_URL}/api/v1/eventos/historico`, {
 
     headers: getAuthHeaders(),
 
-  });
-
-
-
-  if (!response.ok) {
+  }, async (response) => {
 
     const errorData = await response.json();
 
-    throw new Error(errorData.message || 'Error al cargar el histórico de eventos');
+    return new Error(errorData.message || 'Error al cargar el histórico de eventos');
 
-  }
-
-
-
-  return response.json();
+  });
 
 };
\ No newline at end of file
@@ -1,7 +1,8 @@
 // src/services/hitoService.ts
 import { API_URL } from '../main';
-import { getToken } from './authService';
+import { getToken, fetchConAuth } from './authService';
 import { getEventoById } from './eventoService'; // Asegúrate de importar getEventoById
+import { fetchTodasLasPaginas } from './paginacion';
 
 // Interfaz Hito actualizada para mantener compatibilidad con todas las páginas
 export interface Hito {
@@ -42,7 +43,7 @@ const getAuthHeaders = () => {
  * @returns Promise con el objeto Hito o undefined si no se encuentra.
  */
 export const getHitoById = async (id: number): Promise<Hito | undefined> => {
-  const response = await fetch(`${API_URL}/api/v1/hitos/${id}`, {
+  const response = await fetchConAuth(`${API_URL}/api/v1/hitos/${id}`, {
     headers: getAuthHeaders(),
   });
 
@@ -82,7 +83,7 @@ export const getHitosByEventoId = async (eventId: number): Promise<Hito[]> => {
     throw new Error('ID de evento inválido');
   }
   
-  const response = await fetch(`${API_URL}/api/v1/hitos/evento/${eventId}`, {
+  const response = await fetchConAuth(`${API_URL}/api/v1/hitos/evento/${eventId}`, {
     headers: getAuthHeaders(),
   });
 
@@ -115,7 +116,7 @@ export const createHito = async (eventoId: number, newHito: Omit<Hito, 'id'>): P
     fechaRegistro: fechaActual
   };
   
-  const response = await fetch(`${API_URL}/api/v1/hitos/${eventoId}/logro`, {
+  const response = await fetchConAuth(`${API_URL}/api/v1/hitos/${eventoId}/logro`, {
     method: 'POST',
     headers: getAuthHeaders(),
     body: JSON.stringify(hitoConFechaActual),
@@ -135,7 +136,7 @@ export const createHito = async (eventoId: number, newHito: Omit<Hito, 'id'>): P
  * @returns Promise con el objeto Hito actualizado
  */
 export const updateHito = async (hitoData: Hito): Promise<Hito> => {
-  const response = await fetch(`${API_URL}/api/v1/hitos/${hitoData.id}`, {
+  const response = await fetchConAuth(`${API_URL}/api/v1/hitos/${hitoData.id}`, {
     method: 'PUT',
     headers: getAuthHeaders(),
     body: JSON.stringify(hitoData),
@@ -162,7 +163,7 @@ export const updateHito = async (hitoData: Hito): Promise<Hito> => {
  * @returns Promise<void>
  */
 export const deleteHito = async (id: number): Promise<void> => {
-  const response = await fetch(`${API_URL}/api/v1/hitos/${id}`, {
+  const response = await fetchConAuth(`${API_URL}/api/v1/hitos/${id}`, {
     method: 'DELETE',
     headers: getAuthHeaders()
   });
@@ -178,16 +179,12 @@ export const deleteHito = async (id: number): Promise<void> => {
  * @returns Promise con el array de todos los hitos
  */
 export const getAllHitos = async (): Promise<Hito[]> => {
-  const response = await fetch(`${API_URL}/api/v1/hitos`, {
+  const hitos = await fetchTodasLasPaginas<any>(`${API_URL}/api/v1/hitos`, {
     headers: getAuthHeaders(),
-  });
-
-  if (!response.ok) {
+  }, async (response) => {
     const errorData = await response.json().catch(() => ({}));
-    throw new Error(errorData.message || 'Error al obtener los hitos');
-  }
-
-  const hitos = await response.json();
+    return new Error(errorData.message || 'Error al obtener los hitos');
+  });
   console.log("Hitos raw desde getAllHitos:", hitos); // Para depurar
   
   return Promise.all(hitos.map(async (hito: any) => {
@@ -241,7 +238,7 @@ export const getAllHitos = async (): Promise<Hito[]> => {
  * @returns Promise con array de hitos ganados por el usuario
  */
 export const getMisHitosGanados = async (): Promise<Hito[]> => {
-  const response = await fetch(`${API_URL}/api/v1/usuario/mis-hitos-ganados`, {
+  const response = await fetchConAuth(`${API_URL}/api/v1/usuario/mis-hitos-ganados`, {
     headers: getAuthHeaders(),
   });
 
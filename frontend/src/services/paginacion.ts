@@ -0,0 +1,37 @@
+// src/services/paginacion.ts
+import { fetchConAuth } from './authService';
+
+// Los listados del backend están paginados por cursor: el cuerpo es la página y el
+// cursor de la siguiente llega en la cabecera X-Next-Cursor (ausente en la última).
+export const NEXT_CURSOR_HEADER = 'X-Next-Cursor';
+
+// Tamaño máximo de página que acepta el backend (paginacion.tamano-maximo)
+const TAMANO_PAGINA = 200;
+
+/**
+ * Recorre todas las páginas de un listado y devuelve sus elementos concatenados.
+ * @param url URL del listado, con o sin parámetros de consulta
+ * @param init Opciones de fetch (cabeceras de autenticación, etc.)
+ * @param crearError Construye el error a lanzar si alguna página falla
+ * @returns Promise con todos los elementos del listado
+ */
+export const fetchTodasLasPaginas = async <T>(
+  url: string,
+  init: RequestInit,
+  crearError: (response: Response) => Promise<Error>
+): Promise<T[]> => {
+  const elementos: T[] = [];
+  const separador = url.includes('?') ? '&' : '?';
+  let cursor: string | null = null;
+  do {
+    const pagina = `${url}${separador}limite=${TAMANO_PAGINA}`
+      + (cursor ? `&cursor=${encodeURIComponent(cursor)}` : '');
+    const response = await fetchConAuth(pagina, init);
+    if (!response.ok) {
+      throw await crearError(response);
+    }
+    elementos.push(...(await response.json()));
+    cursor = response.headers.get(NEXT_CURSOR_HEADER);
+  } while (cursor);
+  return elementos;
+};
@@ -1,6 +1,7 @@
 // src/services/userService.ts
 import { API_URL } from '../main';
-import { isAdmin, getToken } from '../services/authService'; // Añadir getToken aquí
+import { isAdmin, getToken, fetchConAuth } from '../services/authService'; // Añadir getToken aquí
+import { fetchTodasLasPaginas } from './paginacion';
 
 // Definir la interfaz User
 export interface User {
@@ -26,23 +27,19 @@ export const getAllUsers = async (): Promise<User[]> => {
   }
   
   try {
-    const response = await fetch(`${API_URL}/api/v1/usuario/todos`, {
+    const data = await fetchTodasLasPaginas<any>(`${API_URL}/api/v1/usuario/todos`, {
       headers: {
         'Authorization': `Bearer ${token}`,
         'Content-Type': 'application/json'
       }
-    });
-
-    if (!response.ok) {
+    }, async (response) => {
       if (response.status === 403) {
-        throw new Error('No tienes permisos suficientes para ver la lista de usuarios.');
+        return new Error('No tienes permisos suficientes para ver la lista de usuarios.');
       }
       
       const errorText = await response.text();
-      throw new Error(`Error al obtener usuarios: ${errorText || response.statusText}`);
-    }
-
-    const data = await response.json();
+      return new Error(`Error al obtener usuarios: ${errorText || response.statusText}`);
+    });
     
     return data.map((user: any) => ({
       id: user.id,
@@ -68,7 +65,7 @@ export const updateUserRole = async (userId: number, newRole: string): Promise<a
   const token = getToken(); // Usar getToken() aquí también
   
   try {
-    const response = await fetch(`${API_URL}/api/v1/usuario/${userId}/cambiar-rol`, {
+    const response = await fetchConAuth(`${API_URL}/api/v1/usuario/${userId}/cambiar-rol`, {
       method: 'PUT',
       headers: {
         'Authorization': `Bearer ${token}`,